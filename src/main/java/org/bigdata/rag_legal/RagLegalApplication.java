@@ -1,9 +1,12 @@
 package org.bigdata.rag_legal;
 
+import org.bigdata.rag_legal.config.NativeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeHints.class)
 public class RagLegalApplication {
 
     public static void main(String[] args) {
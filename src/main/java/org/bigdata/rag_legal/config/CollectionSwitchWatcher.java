@@ -0,0 +1,44 @@
+package org.bigdata.rag_legal.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bigdata.rag_legal.service.QueryRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * @describe: 定期检查 law_articles 别名是否被重建任务切换到新版本集合，切换后刷新问题路由的分区质心。
+ * 检索本身通过别名访问，切换后立即生效，不需要重启
+ * @Date 2025/5/22
+ */
+@Slf4j
+@Configuration
+@EnableScheduling
+public class CollectionSwitchWatcher {
+
+    private final QueryRouter queryRouter;
+
+    @Value("${rag.reindex.watch-enabled:true}")
+    private boolean enabled;
+
+    @Value("${rag.warmup.collection:law_articles}")
+    private String collectionName;
+
+    public CollectionSwitchWatcher(QueryRouter queryRouter) {
+        this.queryRouter = queryRouter;
+    }
+
+    @Scheduled(initialDelayString = "${rag.reindex.watch-interval-ms:30000}",
+            fixedDelayString = "${rag.reindex.watch-interval-ms:30000}")
+    public void check() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            queryRouter.refreshIfSwitched(collectionName);
+        } catch (Exception e) {
+            log.warn("⚠️ 检查集合版本失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.bigdata.rag_legal.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * @describe: rag.startup.exit-when-ready=true 时在应用就绪后立即正常退出，
+ * 用于 AppCDS 训练运行（-XX:ArchiveClassesAtExit）：启动过程加载的类全部写入归档，退出时生成归档文件
+ * @Date 2025/5/24
+ */
+@Slf4j
+@Component
+public class ExitWhenReady implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Value("${rag.startup.exit-when-ready:false}")
+    private boolean exitWhenReady;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!exitWhenReady) {
+            return;
+        }
+        log.info("🏁 训练运行：应用已就绪，退出");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
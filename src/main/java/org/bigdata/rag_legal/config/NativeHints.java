@@ -0,0 +1,79 @@
+package org.bigdata.rag_legal.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @describe: GraalVM native image 所需的反射与资源提示（AOT 构建时执行），只登记确实走反射的类型：
+ * Milvus SDK 的 protobuf 消息及其 Builder（io.milvus.grpc，不含 gRPC 存根和 OrBuilder 接口；
+ * io.milvus.param / response 是普通 Java 代码，不需要反射），
+ * QwenClient 用到的 DashScope 文本生成与公共消息类型（Gson 反射序列化，不含音频、图像等其他能力），
+ * org.json 的 JSONObject/JSONArray，以及 ONNX Runtime JNI 代码回调构造的结果对象。
+ * 【实验性】native image 尚未实际构建验证，见 pom.xml 中 native profile 的说明
+ * @Date 2025/5/24
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    private static final MemberCategory[] ALL_MEMBERS = {
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+            MemberCategory.INVOKE_DECLARED_METHODS,
+            MemberCategory.DECLARED_FIELDS
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String className : classesIn(classLoader, "io/milvus/grpc", false)) {
+            if (className.contains("Grpc") || className.endsWith("OrBuilder")) {
+                continue;
+            }
+            hints.reflection().registerType(TypeReference.of(className), ALL_MEMBERS);
+        }
+        for (String path : new String[]{"com/alibaba/dashscope/aigc/generation", "com/alibaba/dashscope/common"}) {
+            for (String className : classesIn(classLoader, path, false)) {
+                hints.reflection().registerType(TypeReference.of(className), ALL_MEMBERS);
+            }
+        }
+        for (String className : classesIn(classLoader, "ai/onnxruntime", true)) {
+            hints.jni().registerType(TypeReference.of(className), ALL_MEMBERS);
+        }
+        hints.reflection().registerType(TypeReference.of("org.json.JSONObject"), ALL_MEMBERS);
+        hints.reflection().registerType(TypeReference.of("org.json.JSONArray"), ALL_MEMBERS);
+
+        hints.resources().registerPattern("static/*");
+        // 本地向量模型的 ONNX Runtime 原生库从 jar 内解压加载
+        hints.resources().registerPattern("ai/onnxruntime/native/*");
+    }
+
+    /**
+     * 扫描包下的所有类名（含嵌套类）
+     *
+     * @param recursive 是否包含子包
+     */
+    private static List<String> classesIn(ClassLoader classLoader, String path, boolean recursive) {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        List<String> classNames = new ArrayList<>();
+        try {
+            for (Resource resource : resolver.getResources("classpath*:" + path + (recursive ? "/**/*.class" : "/*.class"))) {
+                String url = resource.getURL().toString();
+                String className = url.substring(url.lastIndexOf(path), url.length() - ".class".length())
+                        .replace('/', '.');
+                if (className.endsWith("package-info") || className.endsWith("module-info")) {
+                    continue;
+                }
+                classNames.add(className);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("扫描类失败: " + path, e);
+        }
+        return classNames;
+    }
+}
@@ -0,0 +1,93 @@
+package org.bigdata.rag_legal.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bigdata.rag_legal.service.LegalService;
+import org.bigdata.rag_legal.service.QueryRouter;
+import org.bigdata.rag_legal.utils.MilvusService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * @describe: 启动预热：连接 Milvus、加载集合、计算分区质心、通过真实检索链路跑预热问题。
+ * ApplicationRunner 执行完之前 Spring 不会发布 ACCEPTING_TRAFFIC，
+ * 因此 /actuator/health/readiness 在预热完成后才返回 UP。
+ * 开关在运行时判断而不用 @ConditionalOnProperty：AOT 构建会在编译期固定条件注解的结果
+ * @Date 2025/5/10
+ */
+@Slf4j
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private final LegalService legalService;
+    private final QueryRouter queryRouter;
+
+    @Value("${rag.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rag.milvus.host:localhost}")
+    private String milvusHost;
+
+    @Value("${rag.milvus.port:19530}")
+    private int milvusPort;
+
+    @Value("${rag.warmup.collection:law_articles}")
+    private String collectionName;
+
+    @Value("${rag.warmup.queries:}")
+    private List<String> queries;
+
+    /** 是否同时调用大模型（会消耗 token），默认只预热向量化和检索 */
+    @Value("${rag.warmup.generate:false}")
+    private boolean generate;
+
+    /** 预热失败时是否终止启动 */
+    @Value("${rag.warmup.fail-fast:true}")
+    private boolean failFast;
+
+    public StartupWarmup(LegalService legalService, QueryRouter queryRouter) {
+        this.legalService = legalService;
+        this.queryRouter = queryRouter;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            MilvusService.connect(milvusHost, milvusPort);
+            MilvusService.loadCollection(collectionName);
+            queryRouter.refresh(collectionName);
+
+            for (String query : queries) {
+                if (query.isBlank()) {
+                    continue;
+                }
+                long t = System.currentTimeMillis();
+                if (generate) {
+                    legalService.getAnswerFromVectorDB(query);
+                } else {
+                    legalService.retrieveContext(query);
+                }
+                log.info("🔥 预热问题完成，耗时 {} ms: {}", System.currentTimeMillis() - t, query);
+            }
+            log.info("✅ 启动预热完成，总耗时 {} ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            if (failFast) {
+                throw new IllegalStateException("启动预热失败", e);
+            }
+            log.warn("⚠️ 启动预热失败，继续启动: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        MilvusService.close();
+    }
+}
@@ -0,0 +1,89 @@
+package org.bigdata.rag_legal.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bigdata.rag_legal.utils.EmbeddingClient;
+import org.bigdata.rag_legal.utils.MilvusService;
+import org.bigdata.rag_legal.utils.VectorStorage;
+import org.bigdata.rag_legal.utils.embedding.DashScopeEmbeddingProvider;
+import org.bigdata.rag_legal.utils.embedding.LocalEmbeddingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * @describe: 把向量化后端、向量维度、存储方式等配置同步到静态工具类，需与入库时使用的配置一致
+ * @Date 2025/5/12
+ */
+@Slf4j
+@Configuration
+public class VectorStoreConfig {
+
+    @Value("${rag.embedding.backend:dashscope}")
+    private String backend;
+
+    /** 0 表示使用后端默认维度 */
+    @Value("${rag.embedding.dimensions:0}")
+    private int dimensions;
+
+    @Value("${rag.embedding.local.model:models/bge-small-zh/model.onnx}")
+    private String localModel;
+
+    /** 为空时取模型同目录下的 vocab.txt */
+    @Value("${rag.embedding.local.vocab:}")
+    private String localVocab;
+
+    @Value("${rag.embedding.local.max-length:512}")
+    private int localMaxLength;
+
+    /** 0 表示与 CPU 核数相同 */
+    @Value("${rag.embedding.local.threads:0}")
+    private int localThreads;
+
+    @Value("${rag.embedding.local.max-batch:32}")
+    private int localMaxBatch;
+
+    @Value("${rag.embedding.local.max-wait-ms:2}")
+    private long localMaxWaitMs;
+
+    @Value("${rag.embedding.local.timeout-ms:60000}")
+    private long localTimeoutMs;
+
+    @Value("${rag.embedding.storage:FLOAT}")
+    private VectorStorage storage;
+
+    @Value("${rag.search.rerank-factor:4}")
+    private int rerankFactor;
+
+    @PostConstruct
+    public void apply() throws Exception {
+        if ("local".equalsIgnoreCase(backend)) {
+            Path model = Path.of(localModel);
+            EmbeddingClient.useProvider(new LocalEmbeddingProvider(
+                    model,
+                    localVocab.isEmpty() ? model.resolveSibling("vocab.txt") : Path.of(localVocab),
+                    localMaxLength,
+                    localThreads > 0 ? localThreads : Runtime.getRuntime().availableProcessors(),
+                    localMaxBatch,
+                    localMaxWaitMs,
+                    localTimeoutMs));
+        } else if ("dashscope".equalsIgnoreCase(backend)) {
+            EmbeddingClient.useProvider(new DashScopeEmbeddingProvider());
+        } else {
+            throw new IllegalArgumentException("不支持的向量化后端: " + backend + "，可选: dashscope / local");
+        }
+        if (dimensions > 0) {
+            EmbeddingClient.setDimensions(dimensions);
+        }
+        MilvusService.configureStorage(storage, rerankFactor);
+        log.info("🧩 向量配置：后端 {}，维度 {}，存储 {}，重排倍数 {}",
+                backend, EmbeddingClient.getDimensions(), storage, rerankFactor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        EmbeddingClient.close();
+    }
+}
@@ -0,0 +1,25 @@
+package org.bigdata.rag_legal.controller;
+
+import org.bigdata.rag_legal.utils.MilvusService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * @describe: 运维接口：蓝绿重建切换别名后，重建任务轮询各实例在旧版本集合上进行中的检索数，归零后再释放旧版本
+ * @Date 2025/5/22
+ */
+@RestController
+@RequestMapping("api/admin")
+public class AdminController {
+
+    /**
+     * 本实例各真实集合（别名已解析）上进行中的检索数，如 {"law_articles_v20250522103000": 2}
+     */
+    @GetMapping("/inflight")
+    public Map<String, Integer> inFlightSearches() {
+        return MilvusService.inFlightSearches();
+    }
+}
@@ -0,0 +1,24 @@
+package org.bigdata.rag_legal.controller;
+
+import org.bigdata.rag_legal.entity.Reference;
+import org.bigdata.rag_legal.utils.AdmissionRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * @describe: 准入控制拒绝时返回 429 + Retry-After
+ * @Date 2025/5/18
+ */
+@RestControllerAdvice
+public class AdmissionExceptionHandler {
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Reference> handleRejected(AdmissionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new Reference(e.getMessage() + "，请 " + e.getRetryAfterSeconds() + " 秒后再试。"));
+    }
+}
@@ -1,12 +1,27 @@
 package org.bigdata.rag_legal.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.bigdata.rag_legal.entity.Reference;
+import org.bigdata.rag_legal.service.AdmissionService;
+import org.bigdata.rag_legal.service.BatchAskService;
 import org.bigdata.rag_legal.service.LegalService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("api")
@@ -15,11 +30,59 @@ public class LegalController {
     @Autowired
     private  LegalService legalService;
 
+    @Autowired
+    private AdmissionService admissionService;
+
+    @Autowired
+    private BatchAskService batchAskService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${rag.batch.max-questions:1000}")
+    private int maxBatchQuestions;
+
     @PostMapping("/ask")
-    public Reference askQuestion(@RequestBody String question) throws Exception {
+    public Reference askQuestion(@RequestBody String question, HttpServletRequest request) throws Exception {
+        // 客户端限流，超出直接返回 429
+        admissionService.checkRate(admissionService.clientIdOf(request));
+
         // 调用向量数据库查询服务
+        return legalService.getAnswerFromVectorDB(question, admissionService.priorityOf(request));
+    }
+
+    /**
+     * 批量问答：请求体为问题数组，按完成顺序以 NDJSON 逐行返回 {index, question, answer} 或 {index, question, error}
+     */
+    @PostMapping(value = "/ask/batch", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> askBatch(@RequestBody List<String> questions,
+                                                          HttpServletRequest request) {
+        // 整个批量任务只占用一个令牌
+        admissionService.checkRate(admissionService.clientIdOf(request));
+        if (questions.size() > maxBatchQuestions) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "单次最多 " + maxBatchQuestions + " 个问题，实际 " + questions.size() + " 个");
+        }
 
-        return legalService.getAnswerFromVectorDB(question);
+        StreamingResponseBody body = out -> {
+            try {
+                batchAskService.ask(questions, answer -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(answer));
+                        out.write('\n');
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("批量问答被中断");
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
 }
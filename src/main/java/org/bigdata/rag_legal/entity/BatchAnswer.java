@@ -0,0 +1,33 @@
+package org.bigdata.rag_legal.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+/**
+ * @describe: 批量问答中单个问题的结果（NDJSON 的一行），成功时带 answer，失败时带 error
+ * @Date 2025/5/19
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchAnswer {
+    /** 问题在请求数组中的下标 */
+    private final int index;
+    private final String question;
+    private final String answer;
+    private final String error;
+
+    private BatchAnswer(int index, String question, String answer, String error) {
+        this.index = index;
+        this.question = question;
+        this.answer = answer;
+        this.error = error;
+    }
+
+    public static BatchAnswer answered(int index, String question, String answer) {
+        return new BatchAnswer(index, question, answer, null);
+    }
+
+    public static BatchAnswer failed(int index, String question, String error) {
+        return new BatchAnswer(index, question, null, error);
+    }
+}
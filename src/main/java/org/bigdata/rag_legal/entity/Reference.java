@@ -3,11 +3,16 @@ package org.bigdata.rag_legal.entity;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.List;
+
 @Getter
 @Setter
 public class Reference {
     private String content;
 
+    /** 检索到的条文出处（含去重时合并到同一分块的其他法律/条款） */
+    private List<String> sources = List.of();
+
     public Reference(String content) {
         this.content = content;
     }
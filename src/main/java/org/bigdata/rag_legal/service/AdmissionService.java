@@ -0,0 +1,137 @@
+package org.bigdata.rag_legal.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.bigdata.rag_legal.utils.AdmissionRejectedException;
+import org.bigdata.rag_legal.utils.PriorityLimiter;
+import org.bigdata.rag_legal.utils.TokenBucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+/**
+ * @describe: 准入控制：调用 DashScope 的各阶段分别限制并发并按优先级排队，
+ * 每个客户端按令牌桶限流，超出时快速返回 429
+ * @Date 2025/5/18
+ */
+@Service
+public class AdmissionService {
+
+    /** 上游阶段 */
+    public enum Stage {
+        EMBEDDING, GENERATION
+    }
+
+    /**
+     * 请求优先级，数值越小越优先；
+     * 目前没有认证机制，不能区分登录用户，待接入认证后再按身份增加更高的档位
+     */
+    public enum Priority {
+        /** 交互请求 */
+        INTERACTIVE(0),
+        /** 批量任务 */
+        BATCH(1);
+
+        private final int level;
+
+        Priority(int level) {
+            this.level = level;
+        }
+    }
+
+    private final boolean enabled;
+    private final double clientRate;
+    private final double clientBurst;
+    private final Set<String> trustedProxies;
+    private final Map<Stage, PriorityLimiter> limiters;
+    /** 按最近访问排序的客户端令牌桶，超过上限时淘汰最久未访问的，内存有界 */
+    private final Map<String, TokenBucket> buckets;
+
+    public AdmissionService(@Value("${rag.admission.enabled:true}") boolean enabled,
+                            @Value("${rag.admission.embedding.max-concurrent:8}") int embeddingConcurrent,
+                            @Value("${rag.admission.embedding.max-queue:64}") int embeddingQueue,
+                            @Value("${rag.admission.generation.max-concurrent:4}") int generationConcurrent,
+                            @Value("${rag.admission.generation.max-queue:32}") int generationQueue,
+                            @Value("${rag.admission.max-wait-ms:10000}") long maxWaitMillis,
+                            @Value("${rag.admission.client.rate-per-second:1}") double clientRate,
+                            @Value("${rag.admission.client.burst:5}") double clientBurst,
+                            @Value("${rag.admission.client.max-tracked:10000}") int maxTrackedClients,
+                            @Value("${rag.admission.trusted-proxies:}") String trustedProxies) {
+        this.enabled = enabled;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.trustedProxies = Arrays.stream(trustedProxies.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.buckets = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > maxTrackedClients;
+            }
+        });
+        this.limiters = Map.of(
+                Stage.EMBEDDING, new PriorityLimiter("向量化服务", embeddingConcurrent, embeddingQueue, maxWaitMillis),
+                Stage.GENERATION, new PriorityLimiter("大模型服务", generationConcurrent, generationQueue, maxWaitMillis)
+        );
+    }
+
+    /**
+     * 在指定阶段的并发许可内执行上游调用
+     */
+    public <T> T call(Stage stage, Priority priority, Callable<T> task) throws Exception {
+        if (!enabled) {
+            return task.call();
+        }
+        return limiters.get(stage).call(priority.level, task);
+    }
+
+    /**
+     * 客户端限流检查，超出时抛出 AdmissionRejectedException
+     */
+    public void checkRate(String clientId) {
+        if (!enabled) {
+            return;
+        }
+        TokenBucket bucket = buckets.computeIfAbsent(clientId, id -> new TokenBucket(clientBurst, clientRate));
+        if (!bucket.tryAcquire()) {
+            throw new AdmissionRejectedException("请求过于频繁", bucket.secondsUntilAvailable());
+        }
+    }
+
+    /**
+     * X-Request-Priority: batch 可主动降级为批量任务；不接受客户端自行提升优先级
+     */
+    public Priority priorityOf(HttpServletRequest request) {
+        if ("batch".equalsIgnoreCase(request.getHeader("X-Request-Priority"))) {
+            return Priority.BATCH;
+        }
+        return Priority.INTERACTIVE;
+    }
+
+    /**
+     * 客户端标识（限流键）：远端地址；只有远端是配置的可信代理（rag.admission.trusted-proxies）时才读取
+     * X-Forwarded-For，并从右往左跳过可信代理取第一个地址——最左侧的值可由客户端任意伪造
+     */
+    public String clientIdOf(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (!trustedProxies.contains(remote) || forwarded == null || forwarded.isBlank()) {
+            return remote;
+        }
+        String[] hops = forwarded.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                return hop;
+            }
+        }
+        return remote;
+    }
+}
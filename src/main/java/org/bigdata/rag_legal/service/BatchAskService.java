@@ -0,0 +1,287 @@
+package org.bigdata.rag_legal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bigdata.rag_legal.entity.BatchAnswer;
+import org.bigdata.rag_legal.service.AdmissionService.Priority;
+import org.bigdata.rag_legal.service.AdmissionService.Stage;
+import org.bigdata.rag_legal.utils.AdmissionRejectedException;
+import org.bigdata.rag_legal.utils.EmbeddingClient;
+import org.bigdata.rag_legal.utils.MilvusService;
+import org.bigdata.rag_legal.utils.VectorSearchResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * @describe: 批量问答流水线：每 10 个问题一次向量化请求，按路由分区分组做多向量检索，
+ * 生成阶段有界并发执行；下一组的向量化和检索在独立线程上预取，与当前组的生成重叠，每个结果完成即回调输出
+ * @Date 2025/5/19
+ */
+@Slf4j
+@Service
+public class BatchAskService {
+
+    private static final String COLLECTION = "law_articles";
+    /** DashScope 单次向量化请求最多 10 条 */
+    private static final int EMBEDDING_GROUP = 10;
+    private static final int TOP_K = 3;
+    /** 被准入控制拒绝时最多尝试次数 */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final LegalService legalService;
+    private final QueryRouter queryRouter;
+    private final AdmissionService admissionService;
+    private final int concurrency;
+
+    private final AtomicInteger threadSeq = new AtomicInteger();
+
+    public BatchAskService(LegalService legalService, QueryRouter queryRouter, AdmissionService admissionService,
+                           @Value("${rag.batch.generation-concurrency:4}") int concurrency) {
+        this.legalService = legalService;
+        this.queryRouter = queryRouter;
+        this.admissionService = admissionService;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * 执行批量问答，结果按完成顺序交给 sink（调用已串行化）；sink 抛异常（如客户端断开）时停止后续问题
+     */
+    public void ask(List<String> questions, Consumer<BatchAnswer> sink) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ExecutorService generators = Executors.newFixedThreadPool(concurrency,
+                r -> new Thread(r, "batch-ask-" + threadSeq.incrementAndGet()));
+        // 单线程预取：同一时刻最多提前一组，向量化请求仍是一组一次
+        ExecutorService retriever = Executors.newSingleThreadExecutor(
+                r -> new Thread(r, "batch-retrieve-" + threadSeq.incrementAndGet()));
+        Consumer<BatchAnswer> output = answer -> {
+            synchronized (sink) {
+                if (cancelled.get()) {
+                    return;
+                }
+                try {
+                    sink.accept(answer);
+                } catch (RuntimeException e) {
+                    cancelled.set(true);
+                    // 丢弃排队中的问题并中断正在生成的，不再为断开的客户端调用大模型
+                    generators.shutdownNow();
+                    retriever.shutdownNow();
+                    log.warn("⚠️ 批量问答输出失败，停止后续问题: {}", e.getMessage());
+                }
+            }
+        };
+
+        // 限制已检索但未生成的问题数，避免向量化阶段跑得太远
+        Semaphore pending = new Semaphore(concurrency * 2);
+        try {
+            Future<List<String>> next = prefetch(retriever, questions, 0);
+            for (int from = 0; from < questions.size() && !cancelled.get(); from += EMBEDDING_GROUP) {
+                List<String> group = group(questions, from);
+                Future<List<String>> current = next;
+                // 当前组等待生成许可、生成期间，下一组已在检索线程上向量化和检索
+                next = prefetch(retriever, questions, from + EMBEDDING_GROUP);
+                List<String> contexts;
+                try {
+                    contexts = awaitUnlessCancelled(current, cancelled);
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception c ? c : e;
+                    for (int i = 0; i < group.size(); i++) {
+                        String question = group.get(i);
+                        output.accept(BatchAnswer.failed(from + i, question,
+                                isBlank(question) ? "问题为空" : "检索失败: " + describe(cause)));
+                    }
+                    continue;
+                }
+                if (contexts == null) {
+                    break;
+                }
+
+                for (int i = 0; i < group.size() && !cancelled.get(); i++) {
+                    int index = from + i;
+                    String question = group.get(i);
+                    String context = contexts.get(i);
+                    if (context == null) {
+                        output.accept(BatchAnswer.failed(index, question, "问题为空"));
+                        continue;
+                    }
+                    // 取消后排队任务被丢弃、不会归还许可，这里不能无限等待
+                    if (!acquireUnlessCancelled(pending, cancelled)) {
+                        break;
+                    }
+                    try {
+                        generators.execute(() -> {
+                            try {
+                                if (!cancelled.get()) {
+                                    output.accept(answer(index, question, context, cancelled));
+                                }
+                            } finally {
+                                pending.release();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        // 提交前刚好被取消
+                        pending.release();
+                        break;
+                    }
+                }
+            }
+        } finally {
+            retriever.shutdownNow();
+            generators.shutdown();
+            if (!generators.awaitTermination(1, TimeUnit.HOURS)) {
+                generators.shutdownNow();
+            }
+        }
+        log.info("✅ 批量问答{}：{} 个问题，耗时 {} ms", cancelled.get() ? "已取消" : "完成",
+                questions.size(), System.currentTimeMillis() - start);
+    }
+
+    private static List<String> group(List<String> questions, int from) {
+        return questions.subList(from, Math.min(from + EMBEDDING_GROUP, questions.size()));
+    }
+
+    /**
+     * 在检索线程上提前检索从 from 开始的一组；没有下一组或已取消（线程池已关闭）时返回 null
+     */
+    private Future<List<String>> prefetch(ExecutorService retriever, List<String> questions, int from) {
+        if (from >= questions.size()) {
+            return null;
+        }
+        List<String> group = group(questions, from);
+        try {
+            return retriever.submit(() -> retrieveContexts(group));
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 等待预取结果；取消后被丢弃的预取任务永远不会完成，这里不能无限等待，取消时返回 null
+     */
+    private static List<String> awaitUnlessCancelled(Future<List<String>> future, AtomicBoolean cancelled)
+            throws InterruptedException, ExecutionException {
+        if (future == null) {
+            return null;
+        }
+        while (true) {
+            try {
+                return future.get(100, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (cancelled.get()) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    private static boolean acquireUnlessCancelled(Semaphore pending, AtomicBoolean cancelled) throws InterruptedException {
+        while (!pending.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+            if (cancelled.get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 一组问题：一次向量化请求，按路由结果分组后多向量检索；空问题对应位置为 null
+     */
+    private List<String> retrieveContexts(List<String> group) throws Exception {
+        List<Integer> positions = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < group.size(); i++) {
+            String question = group.get(i);
+            if (!isBlank(question)) {
+                positions.add(i);
+                texts.add(question);
+            }
+        }
+        List<String> contexts = new ArrayList<>(Collections.nCopies(group.size(), null));
+        if (texts.isEmpty()) {
+            return contexts;
+        }
+
+        List<List<Float>> vectors = withRetry(() -> admissionService.call(Stage.EMBEDDING, Priority.BATCH,
+                () -> EmbeddingClient.embedInBatches(texts)));
+
+        // 路由到相同分区集合的问题合并为一次多向量检索
+        Map<List<String>, List<Integer>> byPartitions = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            List<String> partitions = queryRouter.route(COLLECTION, texts.get(i), vectors.get(i));
+            byPartitions.computeIfAbsent(partitions, k -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<List<String>, List<Integer>> entry : byPartitions.entrySet()) {
+            List<Integer> members = entry.getValue();
+            List<List<Float>> queryVectors = members.stream().map(vectors::get).collect(Collectors.toList());
+            List<List<VectorSearchResult>> results =
+                    MilvusService.searchBatch(COLLECTION, entry.getKey(), queryVectors, TOP_K);
+            for (int m = 0; m < members.size(); m++) {
+                String context = results.get(m).stream()
+                        .map(VectorSearchResult::text)
+                        .collect(Collectors.joining("\n"));
+                contexts.set(positions.get(members.get(m)), context);
+            }
+        }
+        return contexts;
+    }
+
+    private BatchAnswer answer(int index, String question, String context, AtomicBoolean cancelled) {
+        try {
+            String reply = withRetry(() -> {
+                // 排队重试期间客户端可能已断开
+                if (cancelled.get()) {
+                    throw new InterruptedException("批量问答已取消");
+                }
+                return legalService.generate(question, context, Priority.BATCH);
+            }).getContent();
+            return BatchAnswer.answered(index, question, reply);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return BatchAnswer.failed(index, question, "已取消");
+        } catch (Exception e) {
+            return BatchAnswer.failed(index, question, "生成失败: " + describe(e));
+        }
+    }
+
+    private static boolean isBlank(String question) {
+        return question == null || question.isBlank();
+    }
+
+    private static String describe(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /**
+     * 批量任务优先级最低，排队时可能被交互请求挤掉；按 Retry-After 等待后重试
+     */
+    private static <T> T withRetry(Callable<T> task) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return task.call();
+            } catch (AdmissionRejectedException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                TimeUnit.SECONDS.sleep(e.getRetryAfterSeconds());
+            }
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.bigdata.rag_legal.service;
 
 import org.bigdata.rag_legal.entity.Reference;
+import org.bigdata.rag_legal.service.AdmissionService.Priority;
+import org.bigdata.rag_legal.service.AdmissionService.Stage;
+import org.bigdata.rag_legal.utils.EmbeddingClient;
 import org.bigdata.rag_legal.utils.MilvusService;
 import org.bigdata.rag_legal.utils.QwenClient;
 import org.bigdata.rag_legal.utils.VectorSearchResult;
@@ -10,33 +13,80 @@ import java.util.stream.Collectors;
 
 @Service
 public class LegalService {
-    public Reference getAnswerFromVectorDB(String query) throws Exception {
-        List<Float> queryVector = MilvusService.EmbeddingClient.embed(query);
-        // 向量检索
-        List<VectorSearchResult> results = MilvusService.search("law_articles", queryVector);
 
-        // 获取检索结果文本内容
-        List<String> topTexts = results.stream()
-                .map(VectorSearchResult::text)
-                .collect(Collectors.toList());
+    private final QueryRouter queryRouter;
+    private final AdmissionService admissionService;
+
+    public LegalService(QueryRouter queryRouter, AdmissionService admissionService) {
+        this.queryRouter = queryRouter;
+        this.admissionService = admissionService;
+    }
+
+    public Reference getAnswerFromVectorDB(String query) throws Exception {
+        return getAnswerFromVectorDB(query, Priority.INTERACTIVE);
+    }
 
+    /**
+     * @param priority 准入控制中的排队优先级
+     */
+    public Reference getAnswerFromVectorDB(String query, Priority priority) throws Exception {
+        List<VectorSearchResult> results = retrieve(query, priority);
         // 构建上下文：法律条文拼接
-        String context = String.join("\n", topTexts);
+        String context = joinTexts(results);
 
         System.out.println(context);
 
+        Reference reference = generate(query, context, priority);
+        // 出处：命中分块自身及去重时合并到它的分块
+        reference.setSources(results.stream()
+                .flatMap(r -> r.sources().stream())
+                .distinct()
+                .collect(Collectors.toList()));
+        return reference;
+    }
+
+    /**
+     * 根据检索到的法律条文调用大模型生成回答
+     */
+    public Reference generate(String query, String context, Priority priority) throws Exception {
         // 构建系统提示 + 提问内容
         String systemPrompt = "请根据以下宪法内容回答用户问题，并适当结合一些中国相关法律信息最后总结给予建议进行回答：\n" + context;
 
         // 调用大模型生成回答
-        String reply = QwenClient.chat(systemPrompt, query);
+        String reply = admissionService.call(Stage.GENERATION, priority, () -> QwenClient.chat(systemPrompt, query));
 
         // 打印结果
         System.out.println("🤖 AI 回答：\n" + reply);
 
-        MilvusService.close();
-
         return new Reference(reply);
     }
 
+    public String retrieveContext(String query) throws Exception {
+        return retrieveContext(query, Priority.INTERACTIVE);
+    }
+
+    /**
+     * 向量化 + 向量检索，返回拼接好的法律条文上下文
+     */
+    public String retrieveContext(String query, Priority priority) throws Exception {
+        return joinTexts(retrieve(query, priority));
+    }
+
+    private List<VectorSearchResult> retrieve(String query, Priority priority) throws Exception {
+        List<Float> queryVector = admissionService.call(Stage.EMBEDDING, priority, () -> EmbeddingClient.embed(query));
+        // 路由到相关的法律领域分区
+        List<String> partitions = queryRouter.route("law_articles", query, queryVector);
+        // 向量检索
+        return MilvusService.search("law_articles", partitions, queryVector, 3);
+    }
+
+    private static String joinTexts(List<VectorSearchResult> results) {
+        // 获取检索结果文本内容
+        List<String> topTexts = results.stream()
+                .map(VectorSearchResult::text)
+                .collect(Collectors.toList());
+
+        return String.join("\n", topTexts);
+    }
+
 }
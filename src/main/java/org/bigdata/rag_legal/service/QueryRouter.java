@@ -0,0 +1,203 @@
+package org.bigdata.rag_legal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bigdata.rag_legal.utils.EmbeddingQuantizer;
+import org.bigdata.rag_legal.utils.LawDomain;
+import org.bigdata.rag_legal.utils.MilvusService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * @describe: 问题路由：按问题向量与各分区质心的余弦相似度给法律领域打分，命中领域关键词的再加分，
+ * 只在得分最高的几个分区中检索；质心不可用、最高分过低或选中与落选领域分差过小（路由没把握）时检索全部分区
+ * @Date 2025/5/15
+ */
+@Slf4j
+@Service
+public class QueryRouter {
+
+    private final boolean enabled;
+
+    /** 最多路由到几个领域 */
+    private final int maxDomains;
+
+    /** 计算质心时每个分区采样的向量数 */
+    private final int sampleSize;
+
+    /** 每命中一个领域关键词，相当于余弦相似度提高多少 */
+    private final double keywordWeight;
+
+    /** 质心加载失败后，多久之后再重试 */
+    private final long retryIntervalMs;
+
+    /** 最高得分低于该值时认为问题不属于任何领域，检索全部分区 */
+    private final double minScore;
+
+    /** 最后一个选中领域与第一个落选领域的得分差低于该值时认为路由没把握，检索全部分区 */
+    private final double minMargin;
+
+    private volatile Map<LawDomain, float[]> centroids;
+
+    /** 质心加载失败后的下次重试时间，期间检索全部分区 */
+    private volatile long retryAt;
+
+    /** 计算质心时别名指向的集合 ID，用于发现蓝绿切换 */
+    private volatile long centroidsCollectionId = -1;
+
+    public QueryRouter(@Value("${rag.routing.enabled:true}") boolean enabled,
+                       @Value("${rag.routing.max-domains:2}") int maxDomains,
+                       @Value("${rag.routing.sample-size:500}") int sampleSize,
+                       @Value("${rag.routing.keyword-weight:0.05}") double keywordWeight,
+                       @Value("${rag.routing.retry-interval-ms:30000}") long retryIntervalMs,
+                       @Value("${rag.routing.min-score:0.3}") double minScore,
+                       @Value("${rag.routing.min-margin:0.02}") double minMargin) {
+        this.enabled = enabled;
+        this.maxDomains = maxDomains;
+        this.sampleSize = sampleSize;
+        this.keywordWeight = keywordWeight;
+        this.retryIntervalMs = retryIntervalMs;
+        this.minScore = minScore;
+        this.minMargin = minMargin;
+    }
+
+    /**
+     * 按系统属性创建（命令行工具使用）：rag.routing.max-domains、sample-size、keyword-weight、retry-interval-ms、
+     * min-score、min-margin
+     */
+    public static QueryRouter fromSystemProperties() {
+        return new QueryRouter(true,
+                Integer.getInteger("rag.routing.max-domains", 2),
+                Integer.getInteger("rag.routing.sample-size", 500),
+                Double.parseDouble(System.getProperty("rag.routing.keyword-weight", "0.05")),
+                Long.getLong("rag.routing.retry-interval-ms", 30000),
+                Double.parseDouble(System.getProperty("rag.routing.min-score", "0.3")),
+                Double.parseDouble(System.getProperty("rag.routing.min-margin", "0.02")));
+    }
+
+    /**
+     * @param query       用户问题
+     * @param queryVector 问题向量
+     * @return 需要检索的分区；空列表表示检索整个集合
+     */
+    public List<String> route(String collectionName, String query, List<Float> queryVector) {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        Map<LawDomain, float[]> domainCentroids = centroids(collectionName);
+        if (domainCentroids.isEmpty()) {
+            // 集合没有领域分区（旧数据）或质心加载失败，检索全部
+            return Collections.emptyList();
+        }
+
+        // 关键词只做加分，不覆盖质心排序：单个宽泛关键词（如“税”）不足以把问题拉到不相关的领域
+        Map<LawDomain, Double> scores = new EnumMap<>(LawDomain.class);
+        boolean keywordHit = false;
+        for (Map.Entry<LawDomain, float[]> e : domainCentroids.entrySet()) {
+            int hits = e.getKey().queryHits(query);
+            keywordHit |= hits > 0;
+            // 向量与质心均已归一化，平方 L2 距离 = 2 - 2 × 余弦相似度
+            double cosine = 1 - EmbeddingQuantizer.l2(queryVector, e.getValue()) / 2;
+            scores.put(e.getKey(), cosine + keywordWeight * hits);
+        }
+        List<Map.Entry<LawDomain, Double>> ranked = scores.entrySet().stream()
+                .sorted(Map.Entry.<LawDomain, Double>comparingByValue().reversed())
+                .collect(Collectors.toList());
+        if (ranked.size() <= maxDomains) {
+            // 所有领域都会被选中，等同于检索全部
+            return Collections.emptyList();
+        }
+        double top = ranked.get(0).getValue();
+        double margin = ranked.get(maxDomains - 1).getValue() - ranked.get(maxDomains).getValue();
+        if (top < minScore || margin < minMargin) {
+            log.info("🧭 路由没有把握（最高分 {}，分差 {}），检索全部分区", String.format("%.3f", top), String.format("%.3f", margin));
+            return Collections.emptyList();
+        }
+        List<LawDomain> selected = ranked.stream()
+                .limit(maxDomains)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        log.info("🧭 问题路由到: {}（{}）", selected, keywordHit ? "质心+关键词" : "质心");
+        return selected.stream().map(LawDomain::partition).collect(Collectors.toList());
+    }
+
+    /**
+     * 重新计算各分区质心（启动预热、重建索引后调用）
+     */
+    public synchronized void refresh(String collectionName) {
+        Map<LawDomain, float[]> result = new EnumMap<>(LawDomain.class);
+        try {
+            long collectionId = MilvusService.collectionId(collectionName);
+            for (String partition : MilvusService.listPartitions(collectionName)) {
+                LawDomain domain = LawDomain.fromPartition(partition);
+                if (domain == null) {
+                    continue;
+                }
+                List<float[]> vectors = MilvusService.sampleVectors(collectionName, partition, sampleSize);
+                if (!vectors.isEmpty()) {
+                    result.put(domain, mean(vectors));
+                }
+            }
+            centroids = result;
+            centroidsCollectionId = collectionId;
+            retryAt = 0;
+            log.info("🧭 分区质心已加载: {}", result.keySet());
+        } catch (Exception e) {
+            // 保留已有质心（或保持未加载），到重试时间后再加载，不能把失败当成“没有分区”永久关闭路由
+            retryAt = System.currentTimeMillis() + retryIntervalMs;
+            log.warn("⚠️ 分区质心加载失败，{} ms 后重试，期间{}: {}", retryIntervalMs,
+                    centroids == null ? "检索全部分区" : "沿用旧质心", e.getMessage());
+        }
+    }
+
+    /**
+     * 别名已切换到新版本集合时重新计算质心；尚未加载过质心时不做任何事
+     */
+    public void refreshIfSwitched(String collectionName) {
+        if (!enabled || centroids == null) {
+            return;
+        }
+        long id = MilvusService.collectionId(collectionName);
+        if (id >= 0 && id != centroidsCollectionId) {
+            log.info("🔀 {} 已切换到新版本集合，重新计算分区质心", collectionName);
+            refresh(collectionName);
+        }
+    }
+
+    private Map<LawDomain, float[]> centroids(String collectionName) {
+        Map<LawDomain, float[]> c = centroids;
+        if (c == null) {
+            synchronized (this) {
+                if (centroids == null && System.currentTimeMillis() >= retryAt) {
+                    refresh(collectionName);
+                }
+                c = centroids;
+            }
+        }
+        return c != null ? c : Collections.emptyMap();
+    }
+
+    private static float[] mean(List<float[]> vectors) {
+        float[] sum = new float[vectors.get(0).length];
+        for (float[] v : vectors) {
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += v[i];
+            }
+        }
+        // 归一化，使 L2 比较等价于余弦相似度
+        double norm = 0;
+        for (float v : sum) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = norm == 0 ? 0f : (float) (sum[i] / norm);
+        }
+        return sum;
+    }
+}
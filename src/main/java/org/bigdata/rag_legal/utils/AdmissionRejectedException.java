@@ -0,0 +1,22 @@
+package org.bigdata.rag_legal.utils;
+
+/**
+ * @describe: 请求被准入控制拒绝（队列已满、等待超时或超出客户端限流），对应 HTTP 429
+ * @Date 2025/5/18
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    /**
+     * 建议客户端等待的秒数（Retry-After）
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,210 @@
+package org.bigdata.rag_legal.utils;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @describe: 蓝绿重建索引：数据写入带版本号的新集合（如 law_articles_v20250522103000），
+ * 建索引、加载、预热完成后把别名 law_articles 原子切换过去，在线检索始终通过别名访问；
+ * 轮询各服务实例，等旧版本上进行中的检索归零后再释放或删除旧版本
+ * @Date 2025/5/22
+ */
+public class CollectionVersions {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollectionVersions.class);
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private CollectionVersions() {
+    }
+
+    /**
+     * 新版本集合名：别名_v时间戳
+     */
+    public static String newVersion(String alias) {
+        return alias + "_v" + LocalDateTime.now().format(VERSION_FORMAT);
+    }
+
+    /**
+     * 该别名下的所有版本集合，按版本号从新到旧
+     */
+    public static List<String> versions(String alias) {
+        Pattern pattern = versionPattern(alias);
+        return MilvusService.listCollections().stream()
+                .filter(name -> pattern.matcher(name).matches())
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param journalDir 进度日志目录
+     * @return 上次中断、仍可续传的版本（有进度日志且集合还在），没有时返回 null
+     */
+    public static String pendingVersion(String alias, Path journalDir) throws Exception {
+        if (!Files.isDirectory(journalDir)) {
+            return null;
+        }
+        Pattern pattern = versionPattern(alias);
+        List<String> pending;
+        try (Stream<Path> files = Files.list(journalDir)) {
+            pending = files.map(f -> f.getFileName().toString())
+                    .filter(name -> name.endsWith(".journal"))
+                    .map(name -> name.substring(0, name.length() - ".journal".length()))
+                    .filter(name -> pattern.matcher(name).matches())
+                    .sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList());
+        }
+        List<String> existing = MilvusService.listCollections();
+        for (String version : pending) {
+            if (existing.contains(version)) {
+                return version;
+            }
+            // 集合已不存在，进度日志作废
+            Files.deleteIfExists(journalDir.resolve(version + ".journal"));
+        }
+        return null;
+    }
+
+    /**
+     * 切换前预热：对新版本执行几轮检索，让段加载和索引缓存就绪
+     *
+     * @param samples 预热用的文本（取入库分块的开头即可）
+     */
+    public static void warm(String version, List<String> samples, int rounds) throws Exception {
+        if (samples.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<List<Float>> vectors = EmbeddingClient.embedInBatches(samples);
+        for (int i = 0; i < rounds; i++) {
+            MilvusService.searchBatch(version, null, vectors, 3);
+        }
+        logger.info("🔥 新版本预热完成: {}，{} 条 × {} 轮，耗时 {} ms",
+                version, samples.size(), rounds, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 把别名切换到新版本；轮询 instances 中各服务实例的 /api/admin/inflight，等旧版本上的检索全部结束
+     * （最多等 drainSeconds），之后最近的 keepPrevious 个旧版本只释放内存（可回滚），其余删除
+     *
+     * @param instances 服务实例地址，如 http://10.0.0.5:8085；为空时无法确认，只能等满 drainSeconds
+     */
+    public static void promote(String alias, String version, List<String> instances, long drainSeconds,
+                               int keepPrevious) throws Exception {
+        if (MilvusService.listCollections().contains(alias)) {
+            // 旧部署直接以别名为集合名，Milvus 不允许别名与集合同名，只能先删后建（仅首次迁移时短暂不可用）
+            logger.warn("⚠️ 发现同名旧集合 {}，删除后改为别名指向 {}", alias, version);
+            MilvusService.dropCollection(alias);
+        }
+        MilvusService.switchAlias(alias, version);
+
+        List<String> old = versions(alias).stream()
+                .filter(v -> !v.equals(version))
+                .collect(Collectors.toList());
+        if (old.isEmpty()) {
+            return;
+        }
+        drain(old, instances, drainSeconds);
+        for (int i = 0; i < old.size(); i++) {
+            String previous = old.get(i);
+            try {
+                if (i < keepPrevious) {
+                    MilvusService.releaseCollection(previous);
+                } else {
+                    MilvusService.dropCollection(previous);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("⚠️ 清理旧版本失败（不影响新版本）: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param instances 形如 a,b 的逗号分隔地址（rag.reindex.instances），空白项忽略
+     */
+    public static List<String> parseInstances(String instances) {
+        if (instances == null) {
+            return List.of();
+        }
+        return Arrays.stream(instances.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(s -> s.endsWith("/") ? s.substring(0, s.length() - 1) : s)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 等所有实例（含本进程，如预热检索）在旧版本上进行中的检索归零；drainSeconds 只是上限。
+     * 有实例连不上时无法确认它是否还在用旧版本，继续等到上限
+     */
+    static void drain(List<String> old, List<String> instances, long drainSeconds) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        long deadline = start + TimeUnit.SECONDS.toMillis(drainSeconds);
+        if (instances.isEmpty()) {
+            logger.warn("⚠️ 未配置 rag.reindex.instances，无法确认旧版本上的检索是否结束，等待 {} 秒: {}", drainSeconds, old);
+        } else {
+            logger.info("⏳ 等待旧版本上的检索结束（最多 {} 秒）: {}，实例 {}", drainSeconds, old, instances);
+        }
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        while (true) {
+            Map<String, Integer> local = MilvusService.inFlightSearches();
+            int busy = old.stream().mapToInt(c -> local.getOrDefault(c, 0)).sum();
+            boolean confirmed = !instances.isEmpty();
+            for (String instance : instances) {
+                try {
+                    HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(instance + "/api/admin/inflight"))
+                            .timeout(Duration.ofSeconds(2))
+                            .GET()
+                            .build(), HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException("HTTP " + response.statusCode());
+                    }
+                    JSONObject counts = new JSONObject(response.body());
+                    busy += old.stream().mapToInt(c -> counts.optInt(c, 0)).sum();
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    confirmed = false;
+                    logger.debug("查询实例进行中检索失败: {}，{}", instance, e.getMessage());
+                }
+            }
+            if (confirmed && busy == 0) {
+                logger.info("✅ 旧版本上的检索已结束，等待 {} ms", System.currentTimeMillis() - start);
+                return;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                if (!instances.isEmpty()) {
+                    logger.warn("⚠️ 等待 {} 秒后仍{}，继续清理旧版本", drainSeconds,
+                            confirmed ? "有 " + busy + " 个检索未结束" : "有实例无法确认");
+                }
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(Math.min(POLL_INTERVAL_MS, Math.max(1, deadline - System.currentTimeMillis())));
+        }
+    }
+
+    private static Pattern versionPattern(String alias) {
+        return Pattern.compile(Pattern.quote(alias) + "_v\\d{14}");
+    }
+}
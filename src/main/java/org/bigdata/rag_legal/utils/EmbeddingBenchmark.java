@@ -0,0 +1,164 @@
+package org.bigdata.rag_legal.utils;
+
+import org.bigdata.rag_legal.utils.embedding.EmbeddingProvider;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @describe: 向量维度 / 量化方式评估：以当前向量化后端默认维度的 float 精确检索结果为基准，
+ * 在进程内模拟各配置的检索（含重排），输出 recall@k 和每条向量的内存占用；
+ * 评估维度默认取后端支持的、不超过基准的所有维度，-Drag.bench.dims 指定时也只保留后端支持的
+ * 用法：EmbeddingBenchmark <文档目录> [问题文件，每行一个问题]
+ * @Date 2025/5/12
+ */
+public class EmbeddingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("用法: EmbeddingBenchmark <文档目录> [问题文件]");
+            return;
+        }
+        int k = Integer.getInteger("rag.bench.k", 10);
+        int maxChunks = Integer.getInteger("rag.bench.max-chunks", 2000);
+        int rerankFactor = Integer.getInteger("rag.search.rerank-factor", 4);
+        EmbeddingProvider provider = EmbeddingClient.provider();
+        int baselineDim = provider.defaultDimensions();
+        List<Integer> dims = benchDims(System.getProperty("rag.bench.dims"), baselineDim, provider.supportedDimensions());
+        if (dims.isEmpty()) {
+            System.out.println("❌ 没有可评估的维度，" + provider.name() + " 支持: " + provider.supportedDimensions());
+            return;
+        }
+        Path output = Path.of(System.getProperty("rag.bench.output", "embedding-benchmark.json"));
+
+        List<String> corpus = new LegalDocumentReader(Runtime.getRuntime().availableProcessors(), 512)
+                .read(args[0]).stream()
+                .map(LegalChunk::text)
+                .limit(maxChunks)
+                .collect(Collectors.toList());
+        List<String> queries;
+        if (args.length > 1) {
+            queries = Files.readAllLines(Path.of(args[1]), StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank()).collect(Collectors.toList());
+        } else {
+            // 没有问题集时抽取部分分块的开头作为问题
+            queries = IntStream.range(0, corpus.size()).filter(i -> i % 20 == 0)
+                    .mapToObj(i -> corpus.get(i).substring(0, Math.min(40, corpus.get(i).length())))
+                    .collect(Collectors.toList());
+        }
+        System.out.printf("📊 语料 %d 条，问题 %d 条，k=%d，后端 %s，基准维度 %d，评估维度 %s%n",
+                corpus.size(), queries.size(), k, provider.name(), baselineDim, dims);
+
+        // 基准：后端默认维度 float 精确检索
+        List<List<Float>> baseCorpus = EmbeddingClient.embedInBatches(corpus, baselineDim);
+        List<List<Float>> baseQueries = EmbeddingClient.embedInBatches(queries, baselineDim);
+        List<Set<Integer>> truth = new ArrayList<>();
+        for (List<Float> q : baseQueries) {
+            truth.add(new HashSet<>(exactTopK(q, toArrays(baseCorpus), k)));
+        }
+        long baselineBytes = VectorStorage.FLOAT.bytesPerVector(baselineDim);
+
+        JSONArray report = new JSONArray();
+        System.out.printf("%-6s %-8s %-10s %-14s %-10s%n", "dim", "storage", "recall@k", "bytes/vector", "压缩比");
+        for (int dim : dims) {
+            List<List<Float>> corpusVectors = dim == baselineDim ? baseCorpus : EmbeddingClient.embedInBatches(corpus, dim);
+            List<List<Float>> queryVectors = dim == baselineDim ? baseQueries : EmbeddingClient.embedInBatches(queries, dim);
+            float[][] floats = toArrays(corpusVectors);
+            List<ByteBuffer> bits = corpusVectors.stream().map(EmbeddingQuantizer::toBinary).collect(Collectors.toList());
+            float[][] signs = bits.stream().map(EmbeddingQuantizer::fromBinary).toArray(float[][]::new);
+
+            for (VectorStorage storage : VectorStorage.values()) {
+                double recallSum = 0;
+                for (int q = 0; q < queryVectors.size(); q++) {
+                    List<Float> query = queryVectors.get(q);
+                    List<Integer> result = switch (storage) {
+                        case FLOAT -> exactTopK(query, floats, k);
+                        case BINARY -> rerank(query, hammingTopK(EmbeddingQuantizer.toBinary(query), bits, k * rerankFactor), signs, k);
+                    };
+                    long hits = result.stream().filter(truth.get(q)::contains).count();
+                    recallSum += (double) hits / k;
+                }
+                double recall = recallSum / queryVectors.size();
+                long bytes = storage.bytesPerVector(dim);
+
+                System.out.printf("%-6d %-8s %-10.4f %-14d %.2fx%n", dim, storage, recall, bytes,
+                        (double) baselineBytes / bytes);
+                report.put(new JSONObject()
+                        .put("dimensions", dim)
+                        .put("storage", storage.name())
+                        .put("recallAtK", recall)
+                        .put("k", k)
+                        .put("bytesPerVector", bytes)
+                        .put("totalBytes", bytes * corpus.size())
+                        .put("compression", (double) baselineBytes / bytes));
+            }
+        }
+
+        Files.writeString(output, new JSONObject()
+                .put("corpusSize", corpus.size())
+                .put("queries", queries.size())
+                .put("backend", provider.name())
+                .put("baselineDimensions", baselineDim)
+                .put("rerankFactor", rerankFactor)
+                .put("results", report)
+                .toString(2), StandardCharsets.UTF_8);
+        System.out.println("✅ 评估报告已写入: " + output.toAbsolutePath());
+    }
+
+    /**
+     * @param configured -Drag.bench.dims 的值，为空时取后端支持的、不超过基准维度的所有维度
+     *                   评估维度从大到小排列，后端不支持的维度跳过
+     */
+    static List<Integer> benchDims(String configured, int baselineDim, Set<Integer> supported) {
+        List<Integer> candidates = configured == null || configured.isBlank()
+                ? supported.stream().filter(d -> d <= baselineDim).collect(Collectors.toList())
+                : Arrays.stream(configured.split(",")).map(String::trim).map(Integer::parseInt).collect(Collectors.toList());
+        List<Integer> dims = new ArrayList<>();
+        for (int dim : candidates) {
+            if (!supported.contains(dim)) {
+                System.out.println("⚠️ 后端不支持维度 " + dim + "，跳过");
+            } else if (!dims.contains(dim)) {
+                dims.add(dim);
+            }
+        }
+        dims.sort(Comparator.reverseOrder());
+        return dims;
+    }
+
+    private static List<Integer> exactTopK(List<Float> query, float[][] vectors, int k) {
+        return IntStream.range(0, vectors.length).boxed()
+                .sorted(Comparator.comparingDouble(i -> EmbeddingQuantizer.l2(query, vectors[i])))
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Integer> hammingTopK(ByteBuffer query, List<ByteBuffer> vectors, int k) {
+        return IntStream.range(0, vectors.size()).boxed()
+                .sorted(Comparator.comparingInt(i -> EmbeddingQuantizer.hamming(query, vectors.get(i))))
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Integer> rerank(List<Float> query, List<Integer> candidates, float[][] vectors, int k) {
+        return candidates.stream()
+                .sorted(Comparator.comparingDouble(i -> EmbeddingQuantizer.l2(query, vectors[i])))
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
+    private static float[][] toArrays(List<List<Float>> vectors) {
+        return vectors.stream().map(EmbeddingQuantizer::toArray).toArray(float[][]::new);
+    }
+}
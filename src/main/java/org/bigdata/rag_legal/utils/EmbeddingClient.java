@@ -1,22 +1,19 @@
 package org.bigdata.rag_legal.utils;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import org.bigdata.rag_legal.utils.embedding.DashScopeEmbeddingProvider;
+import org.bigdata.rag_legal.utils.embedding.EmbeddingProvider;
+import org.bigdata.rag_legal.utils.embedding.LocalEmbeddingProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
- * @describe: 单一职责，生成向量
+ * @describe: 单一职责，生成向量；具体由 EmbeddingProvider 后端完成
+ * （rag.embedding.backend=dashscope 远程接口 | local 本地 CPU 模型）
  * @Author JasonZhang
  * @Date 2025/4/14
  **/
@@ -24,131 +21,106 @@ public class EmbeddingClient {
 
     private static final Logger logger = LoggerFactory.getLogger(EmbeddingClient.class);
 
-    private static final String API_URL = "https://dashscope.aliyuncs.com/compatible-mode/v1/embeddings";
-    private static final String API_KEY = System.getenv("DASHSCOPE_API_KEY");
+    /** text-embedding-v3 支持的输出维度 */
+    public static final Set<Integer> SUPPORTED_DIMENSIONS = DashScopeEmbeddingProvider.SUPPORTED_DIMENSIONS;
 
-    private static final HttpClient httpClient = HttpClient.newHttpClient();
+    private static volatile EmbeddingProvider provider;
 
-    public EmbeddingClient() {
-        if (API_KEY == null || API_KEY.isEmpty()) {
-            throw new RuntimeException("❌ 未检测到 DASHSCOPE_API_KEY，请设置环境变量");
-        }
-        logger.info("✅ 成功获取 API_KEY，长度: {}", API_KEY.length());
+    /** 显式配置的维度，为空时使用后端的默认维度（-Drag.embedding.dimensions=0 同样表示默认） */
+    private static volatile Integer dimensions = configuredDimensions();
+
+    private static Integer configuredDimensions() {
+        Integer dim = Integer.getInteger("rag.embedding.dimensions");
+        return dim != null && dim > 0 ? dim : null;
     }
 
     /**
-     * 单条文本向量化
+     * 切换向量化后端，关闭之前的后端
      */
-    public static List<Float> embed(String text) throws Exception {
-        List<List<Float>> results = embedInBatches(Collections.singletonList(text));
-        return results.isEmpty() ? Collections.emptyList() : results.get(0);
+    public static synchronized void useProvider(EmbeddingProvider newProvider) {
+        EmbeddingProvider old = provider;
+        provider = newProvider;
+        if (old != null && old != newProvider) {
+            old.close();
+        }
+        logger.info("🧩 向量化后端: {}", newProvider.name());
     }
 
     /**
-     * 多条文本向量化
+     * 当前后端；未设置时按 -Drag.embedding.backend 创建（命令行工具使用）
      */
-//    public static List<List<Float>> embed(List<String> texts) throws Exception {
-//        logger.info("📨 准备向量化文本，共计: {} 条", texts.size());
-//
-//        JSONObject requestBody = new JSONObject();
-//        requestBody.put("model", "text-embedding-v3");
-//        requestBody.put("input", new JSONArray(texts));
-//        requestBody.put("dimensions", 1024);
-//        requestBody.put("encoding_format", "float");
-//
-//        HttpRequest request = HttpRequest.newBuilder()
-//                .uri(URI.create(API_URL))
-//                .header("Authorization", "Bearer " + API_KEY)
-//                .header("Content-Type", "application/json")
-//                .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString(), StandardCharsets.UTF_8))
-//                .build();
-//
-//        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-//
-//        if (response.statusCode() != 200) {
-//            logger.error("❌ 向量化请求失败，状态码: {}, 响应体: {}", response.statusCode(), response.body());
-//            throw new RuntimeException("向量请求失败: " + response.statusCode());
-//        }
-//
-//        String responseBody = response.body();
-//        logger.info("✅ 请求成功，响应预览: {}", responseBody.length() > 60 ? responseBody.substring(0, 60) + "..." : responseBody);
-//
-//        return extractEmbeddings(responseBody);
-//    }
-    public static List<List<Float>> embedInBatches(List<String> texts) throws Exception {
-        logger.info("📨 准备向量化文本，共计: {} 条", texts.size());
-        final int BATCH_SIZE = 10;  // 每次最多处理10条文本
-        List<List<Float>> allEmbeddings = new ArrayList<>();
-
-        // 拆分批次并循环处理
-        for (int i = 0; i < texts.size(); i += BATCH_SIZE) {
-            int end = Math.min(i + BATCH_SIZE, texts.size());
-            List<String> batchTexts = texts.subList(i, end);
-            logger.info("处理批次 {}: 处理 {} 条文本", (i/BATCH_SIZE + 1), batchTexts.size());
-
-            // 调用原始向量化方法处理当前批次
-            List<List<Float>> batchEmbeddings = embedBatch(batchTexts);
-            allEmbeddings.addAll(batchEmbeddings);
+    public static EmbeddingProvider provider() {
+        EmbeddingProvider current = provider;
+        if (current == null) {
+            synchronized (EmbeddingClient.class) {
+                if (provider == null) {
+                    useProvider(createProvider(System.getProperty("rag.embedding.backend", "dashscope")));
+                }
+                current = provider;
+            }
         }
-
-        logger.info("✅ 向量化处理完成，共生成 {} 个向量", allEmbeddings.size());
-        return allEmbeddings;
+        return current;
     }
 
-    // 单次向量化处理（限制10条以内）
-    private static List<List<Float>> embedBatch(List<String> batchTexts) throws Exception {
-        if (batchTexts.size() > 10) {
-            throw new IllegalArgumentException("批次大小不能超过10，当前传入: " + batchTexts.size());
+    private static EmbeddingProvider createProvider(String backend) {
+        try {
+            return switch (backend.toLowerCase()) {
+                case "dashscope" -> new DashScopeEmbeddingProvider();
+                case "local" -> LocalEmbeddingProvider.fromSystemProperties();
+                default -> throw new IllegalArgumentException("不支持的向量化后端: " + backend + "，可选: dashscope / local");
+            };
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("向量化后端初始化失败: " + backend, e);
         }
+    }
 
-        JSONObject requestBody = new JSONObject();
-        requestBody.put("model", "text-embedding-v3");
-        requestBody.put("input", new JSONArray(batchTexts));
-        requestBody.put("dimensions", 1024);
-        requestBody.put("encoding_format", "float");
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_URL))
-                .header("Authorization", "Bearer " + API_KEY)
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString(), StandardCharsets.UTF_8))
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            logger.error("❌ 向量化批次请求失败，状态码: {}, 响应体: {}",
-                    response.statusCode(), response.body());
-            throw new RuntimeException("向量批次请求失败: " + response.statusCode());
+    /**
+     * @param dim 输出维度，入库和检索两端必须一致
+     *            设置向量维度
+     */
+    public static void setDimensions(int dim) {
+        Set<Integer> supported = provider().supportedDimensions();
+        if (!supported.contains(dim)) {
+            throw new IllegalArgumentException("不支持的向量维度: " + dim + "，当前后端 "
+                    + provider().name() + " 可选: " + supported);
         }
+        dimensions = dim;
+    }
 
-        String responseBody = response.body();
-        logger.info("✅ 批次请求成功，响应预览: {}",
-                responseBody.length() > 60 ? responseBody.substring(0, 60) + "..." : responseBody);
+    public static int getDimensions() {
+        Integer dim = dimensions;
+        return dim != null ? dim : provider().defaultDimensions();
+    }
 
-        return extractEmbeddings(responseBody);
+    /**
+     * 单条文本向量化
+     */
+    public static List<Float> embed(String text) throws Exception {
+        List<List<Float>> results = embedInBatches(Collections.singletonList(text));
+        return results.isEmpty() ? Collections.emptyList() : results.get(0);
+    }
+
+    public static List<List<Float>> embedInBatches(List<String> texts) throws Exception {
+        return embedInBatches(texts, getDimensions());
     }
 
     /**
-     * 从响应中提取向量
+     * @param dim 输出维度（评估不同维度时使用）
      */
-    private static List<List<Float>> extractEmbeddings(String json) {
-        logger.info("🔍 正在提取向量...");
-        List<List<Float>> vectors = new ArrayList<>();
-        JSONObject jsonObject = new JSONObject(json);
-        JSONArray dataArray = jsonObject.getJSONArray("data");
-
-        for (int i = 0; i < dataArray.length(); i++) {
-            JSONArray vectorArray = dataArray.getJSONObject(i).getJSONArray("embedding");
-            List<Float> vector = new ArrayList<>();
-            for (int j = 0; j < vectorArray.length(); j++) {
-                vector.add((float) vectorArray.getDouble(j));
-            }
-            vectors.add(vector);
-        }
+    public static List<List<Float>> embedInBatches(List<String> texts, int dim) throws Exception {
+        return provider().embed(texts, dim);
+    }
 
-        logger.info("📦 提取完成，共计向量条数: {}", vectors.size());
-        return vectors;
+    /**
+     * 关闭当前后端（本地模型会释放推理线程和模型内存）
+     */
+    public static synchronized void close() {
+        if (provider != null) {
+            provider.close();
+            provider = null;
+        }
     }
 
     /**
@@ -162,7 +134,11 @@ public class EmbeddingClient {
         );
         List<List<Float>> vectors = embedInBatches(inputs);
         System.out.println("✔ 向量维度：" + vectors.get(0).size());
+
+        // 单条查询延迟
+        long start = System.nanoTime();
+        embed(inputs.get(0));
+        System.out.printf("✔ 单条向量化耗时：%.2f ms%n", (System.nanoTime() - start) / 1_000_000d);
+        close();
     }
 }
-
-
@@ -0,0 +1,70 @@
+package org.bigdata.rag_legal.utils;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * @describe: 向量量化工具：二值化（符号位）、符号位还原以及距离计算
+ * @Date 2025/5/12
+ */
+public class EmbeddingQuantizer {
+
+    private EmbeddingQuantizer() {
+    }
+
+    /**
+     * 二值化：每维取符号位，按 Milvus BinaryVector 约定高位在前打包
+     */
+    public static ByteBuffer toBinary(List<Float> vector) {
+        byte[] bits = new byte[(vector.size() + 7) / 8];
+        for (int i = 0; i < vector.size(); i++) {
+            if (vector.get(i) > 0f) {
+                bits[i / 8] |= (byte) (0x80 >>> (i % 8));
+            }
+        }
+        return ByteBuffer.wrap(bits);
+    }
+
+    /**
+     * 符号位还原为单位长度的 ±1/√d 向量（d 为位数），与归一化的 float 查询向量计算 L2 即非对称距离，
+     * 比汉明距离多保留了查询向量的幅度信息，用于重排汉明召回的候选
+     */
+    public static float[] fromBinary(ByteBuffer bits) {
+        int dim = bits.remaining() * 8;
+        float magnitude = (float) (1 / Math.sqrt(dim));
+        float[] vector = new float[dim];
+        for (int i = 0; i < dim; i++) {
+            boolean positive = (bits.get(bits.position() + i / 8) & (0x80 >>> (i % 8))) != 0;
+            vector[i] = positive ? magnitude : -magnitude;
+        }
+        return vector;
+    }
+
+    public static int hamming(ByteBuffer a, ByteBuffer b) {
+        int distance = 0;
+        for (int i = 0; i < a.capacity(); i++) {
+            distance += Integer.bitCount((a.get(i) ^ b.get(i)) & 0xFF);
+        }
+        return distance;
+    }
+
+    /**
+     * 平方 L2 距离，与 Milvus L2 度量一致
+     */
+    public static float l2(List<Float> query, float[] vector) {
+        float sum = 0f;
+        for (int i = 0; i < vector.length; i++) {
+            float d = query.get(i) - vector[i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    public static float[] toArray(List<Float> vector) {
+        float[] array = new float[vector.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = vector.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,128 @@
+package org.bigdata.rag_legal.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @describe: 入库进度日志，每个批次插入成功后追加一行并落盘，用于中断后续传
+ * @Date 2025/5/8
+ */
+public class IngestJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestJournal.class);
+
+    private static final String HEADER_PREFIX = "# corpus=";
+    private static final String BATCH_PREFIX = "batch=";
+    private static final Pattern BATCH_LINE = Pattern.compile("batch=(\\d+) rows=\\d+;");
+
+    private final Path file;
+    private final Set<Integer> completedBatches = ConcurrentHashMap.newKeySet();
+    private final boolean resuming;
+    private FileChannel channel;
+
+    /**
+     * @param file        日志文件路径
+     * @param fingerprint 语料及批次规划的指纹；与已有日志不一致时视为新任务，从头开始
+     */
+    public IngestJournal(Path file, String fingerprint) throws IOException {
+        this.file = file;
+        boolean matched = false;
+        long validLength = 0;
+        if (Files.exists(file)) {
+            byte[] content = Files.readAllBytes(file);
+            // 崩溃时最后一行可能只写了一半：只解析到最后一个换行符为止，续写前截掉残行，
+            // 否则新追加的记录会拼在残行后面被误认为完整记录
+            for (int i = content.length - 1; i >= 0; i--) {
+                if (content[i] == '\n') {
+                    validLength = i + 1;
+                    break;
+                }
+            }
+            List<String> lines = new String(content, 0, (int) validLength, StandardCharsets.UTF_8).lines().toList();
+            if (!lines.isEmpty() && lines.get(0).equals(HEADER_PREFIX + fingerprint)) {
+                matched = true;
+                for (String line : lines.subList(1, lines.size())) {
+                    Matcher m = BATCH_LINE.matcher(line);
+                    if (m.matches()) {
+                        completedBatches.add(Integer.parseInt(m.group(1)));
+                    }
+                }
+            } else {
+                logger.warn("⚠️ 进度日志与当前语料不匹配，重新开始: {}", file);
+            }
+        }
+        this.resuming = matched;
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        if (matched) {
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            channel.truncate(validLength);
+            channel.position(validLength);
+        } else {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            write(HEADER_PREFIX + fingerprint + "\n");
+        }
+    }
+
+    /**
+     * 是否在续传一个未完成的任务
+     */
+    public boolean isResuming() {
+        return resuming;
+    }
+
+    public boolean isCompleted(int batchNo) {
+        return completedBatches.contains(batchNo);
+    }
+
+    public int completedCount() {
+        return completedBatches.size();
+    }
+
+    /**
+     * 记录批次完成并强制刷盘
+     */
+    public synchronized void commit(int batchNo, long rows) throws IOException {
+        write(BATCH_PREFIX + batchNo + " rows=" + rows + ";\n");
+        completedBatches.add(batchNo);
+    }
+
+    /**
+     * 任务全部完成后删除日志，下次运行重新构建
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    private void write(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.bigdata.rag_legal.utils;
+
+import java.util.List;
+
+/**
+ * @describe: 法律领域，每个领域对应 Milvus 集合中的一个分区
+ * @Date 2025/5/15
+ */
+public enum LawDomain {
+
+    CONSTITUTION("constitution",
+            List.of("宪法", "立法法", "组织法", "选举法", "国旗", "国徽", "国籍"),
+            List.of("宪法", "基本权利", "公民权利", "人民代表大会", "国家机构", "选举", "国家主席", "国务院")),
+
+    CRIMINAL("criminal",
+            List.of("刑法", "刑事", "监察法", "治安管理"),
+            List.of("犯罪", "刑事", "判刑", "判处", "有期徒刑", "拘役", "死刑", "盗窃", "诈骗", "抢劫", "杀人",
+                    "故意伤害", "贪污", "受贿", "毒品", "量刑", "自首", "缓刑", "公诉", "治安")),
+
+    CIVIL("civil",
+            List.of("民法", "民事", "合同", "婚姻", "继承", "物权", "侵权", "公司", "劳动", "消费者"),
+            List.of("合同", "违约", "离婚", "结婚", "抚养", "赡养", "继承", "遗嘱", "赔偿", "侵权", "房屋", "租赁",
+                    "借款", "借钱", "欠款", "债务", "物业", "股东", "公司", "劳动", "工资", "消费者")),
+
+    ADMINISTRATIVE("administrative",
+            List.of("行政", "处罚", "许可", "复议", "强制", "国家赔偿", "税收", "土地管理"),
+            List.of("行政", "处罚", "罚款", "吊销", "许可", "复议", "政府", "执法", "拆迁", "征收", "税", "信息公开")),
+
+    OTHER("other", List.of(), List.of());
+
+    private final String partition;
+    private final List<String> sourceKeywords;
+    private final List<String> queryKeywords;
+
+    LawDomain(String partition, List<String> sourceKeywords, List<String> queryKeywords) {
+        this.partition = partition;
+        this.sourceKeywords = sourceKeywords;
+        this.queryKeywords = queryKeywords;
+    }
+
+    /**
+     * Milvus 分区名
+     */
+    public String partition() {
+        return partition;
+    }
+
+    /**
+     * 问题中命中的关键词个数
+     */
+    public int queryHits(String query) {
+        int hits = 0;
+        for (String keyword : queryKeywords) {
+            if (query.contains(keyword)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * @param lawName    法律名称（文件名）
+     * @param sourcePath 文件相对路径（含所在文件夹）
+     *                   先按法律名称判断，判断不出再看所在文件夹
+     */
+    public static LawDomain classify(String lawName, String sourcePath) {
+        LawDomain domain = match(lawName);
+        return domain != OTHER ? domain : match(sourcePath);
+    }
+
+    public static LawDomain fromPartition(String partition) {
+        for (LawDomain domain : values()) {
+            if (domain.partition.equals(partition)) {
+                return domain;
+            }
+        }
+        return null;
+    }
+
+    private static LawDomain match(String text) {
+        for (LawDomain domain : values()) {
+            for (String keyword : domain.sourceKeywords) {
+                if (text.contains(keyword)) {
+                    return domain;
+                }
+            }
+        }
+        return OTHER;
+    }
+}
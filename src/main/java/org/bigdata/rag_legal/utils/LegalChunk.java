@@ -0,0 +1,19 @@
+package org.bigdata.rag_legal.utils;
+
+/**
+ * @describe: 法律文本分块结果
+ * @param text    分块文本
+ * @param law     来源法律名称（文件名去掉扩展名）
+ * @param article 条款编号，如“第二条”；章节引言等非条款内容为空串
+ * @param domain  所属法律领域（决定写入的分区）
+ * @Date 2025/5/6
+ **/
+public record LegalChunk(String text, String law, String article, LawDomain domain) {
+
+    /**
+     * 出处，如“中华人民共和国刑法 第二百六十四条”；非条款内容只有法律名称
+     */
+    public String source() {
+        return article.isEmpty() ? law : law + " " + article;
+    }
+}
@@ -0,0 +1,125 @@
+package org.bigdata.rag_legal.utils;
+
+import org.bigdata.rag_legal.utils.extractor.DocExtractor;
+import org.bigdata.rag_legal.utils.extractor.DocumentExtractor;
+import org.bigdata.rag_legal.utils.extractor.DocxExtractor;
+import org.bigdata.rag_legal.utils.extractor.PdfExtractor;
+import org.bigdata.rag_legal.utils.extractor.TxtExtractor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @describe: 并行读取文件夹下的法律文档，逐段落抽取并交给分块器
+ * @Date 2025/5/6
+ */
+public class LegalDocumentReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegalDocumentReader.class);
+
+    private final int workers;
+    private final int maxChunkLength;
+    private final Map<String, DocumentExtractor> extractors = new HashMap<>();
+
+    /**
+     * @param workers        并行抽取的线程数
+     * @param maxChunkLength 单个分块的最大长度
+     */
+    public LegalDocumentReader(int workers, int maxChunkLength) {
+        this.workers = Math.max(1, workers);
+        this.maxChunkLength = maxChunkLength;
+        register(new DocxExtractor());
+        register(new DocExtractor());
+        register(new PdfExtractor());
+        register(new TxtExtractor());
+    }
+
+    /**
+     * 注册（或替换）某类文件的抽取器
+     */
+    public LegalDocumentReader register(DocumentExtractor extractor) {
+        for (String ext : extractor.extensions()) {
+            extractors.put(ext, extractor);
+        }
+        return this;
+    }
+
+    /**
+     * @param folderPath 文档根目录（递归读取子目录）
+     *                   读取并分块，结果按文件路径排序，保证多次运行顺序一致
+     */
+    public List<LegalChunk> read(String folderPath) throws Exception {
+        Path root = Path.of(folderPath);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(p -> !p.getFileName().toString().startsWith("~$")) // 跳过 Office 临时文件
+                    .filter(p -> extractors.containsKey(extension(p)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        logger.info("📂 待处理文档 {} 个，并行线程数: {}", files.size(), workers);
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(workers, Math.max(1, files.size())));
+        try {
+            List<Future<List<LegalChunk>>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(pool.submit(() -> readFile(root, file)));
+            }
+
+            List<LegalChunk> chunks = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    chunks.addAll(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("文档解析失败: " + files.get(i), e.getCause());
+                }
+            }
+            logger.info("✅ 文档分块完成，共 {} 个分块", chunks.size());
+            return chunks;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<LegalChunk> readFile(Path root, Path file) throws Exception {
+        long start = System.currentTimeMillis();
+        List<LegalChunk> chunks = new ArrayList<>();
+        String law = lawName(file);
+        // 领域按法律名称和所在文件夹判断，如 宪法/xxx.docx
+        LawDomain domain = LawDomain.classify(law, root.toAbsolutePath().getFileName() + "/" + root.relativize(file));
+        LegalTextChunker chunker = new LegalTextChunker(law, domain, maxChunkLength, chunks::add);
+
+        extractors.get(extension(file)).extract(file, chunker::accept);
+        chunker.finish();
+
+        logger.info("📄 {} [{}] -> {} 个分块，耗时 {} ms", file.getFileName(), domain, chunks.size(),
+                System.currentTimeMillis() - start);
+        return chunks;
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String lawName(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+}
@@ -0,0 +1,150 @@
+package org.bigdata.rag_legal.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @describe: 流式法律文本分块器，逐段落接收文本，按章、条切分，超长条款再按句子和长度二次切分
+ * @Date 2025/5/6
+ */
+public class LegalTextChunker {
+
+    private static final Pattern CHAPTER = Pattern.compile("^第[零一二三四五六七八九十百]+章");
+    private static final Pattern ARTICLE = Pattern.compile("^(第[零一二三四五六七八九十百千]+条)");
+
+    private static final int LONG_ARTICLE_LENGTH = 1000;
+    private static final int SENTENCE_CHUNK_LENGTH = 800;
+
+    private final String law;
+    private final LawDomain domain;
+    private final int maxLength;
+    private final Consumer<LegalChunk> sink;
+
+    private final StringBuilder current = new StringBuilder();
+    private String currentArticle = "";
+
+    /**
+     * @param law       来源法律名称
+     * @param domain    所属法律领域
+     * @param maxLength 单个分块的最大长度（原 MAX_TEXT_LENGTH）
+     * @param sink      分块回调
+     */
+    public LegalTextChunker(String law, LawDomain domain, int maxLength, Consumer<LegalChunk> sink) {
+        this.law = law;
+        this.domain = domain;
+        this.maxLength = maxLength;
+        this.sink = sink;
+    }
+
+    /**
+     * 接收一个段落；遇到章、条标题时先输出上一个分块
+     */
+    public void accept(String paragraph) {
+        Matcher article = ARTICLE.matcher(paragraph);
+        if (article.find()) {
+            flush();
+            currentArticle = article.group(1);
+        } else if (CHAPTER.matcher(paragraph).find()) {
+            flush();
+            currentArticle = "";
+        } else if (current.length() >= LONG_ARTICLE_LENGTH * 4) {
+            // 没有章、条结构的文档，避免把整篇文本攒在内存里
+            flush();
+        }
+
+        if (current.length() > 0) {
+            current.append("\n");
+        }
+        current.append(paragraph);
+    }
+
+    /**
+     * 文档结束，输出最后一个分块
+     */
+    public void finish() {
+        flush();
+    }
+
+    private void flush() {
+        String chunk = current.toString().trim();
+        current.setLength(0);
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<String> pieces = new ArrayList<>();
+        if (chunk.length() < LONG_ARTICLE_LENGTH) {
+            pieces.add(chunk);
+        } else {
+            // 对超长条款进行二次分割
+            splitLongArticle(chunk, pieces);
+        }
+
+        for (String piece : pieces) {
+            if (piece.length() <= maxLength) {
+                sink.accept(new LegalChunk(piece, law, currentArticle, domain));
+            } else {
+                for (String segment : splitText(piece, maxLength)) {
+                    sink.accept(new LegalChunk(segment, law, currentArticle, domain));
+                }
+            }
+        }
+    }
+
+    static void splitLongArticle(String article, List<String> chunks) {
+        String[] sentences = article.split("[；。]");
+        StringBuilder currentChunk = new StringBuilder();
+
+        for (String sentence : sentences) {
+            if (currentChunk.length() + sentence.length() < SENTENCE_CHUNK_LENGTH) {
+                currentChunk.append(sentence).append("。");
+            } else {
+                if (currentChunk.length() > 0) {
+                    chunks.add(currentChunk.toString());
+                    currentChunk = new StringBuilder();
+                }
+                currentChunk.append(sentence).append("。");
+            }
+        }
+
+        if (currentChunk.length() > 0) {
+            chunks.add(currentChunk.toString());
+        }
+    }
+
+    static List<String> splitText(String text, int maxLength) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+
+        while (start < text.length()) {
+            int end = Math.min(start + maxLength, text.length());
+
+            // 尝试在句子或段落边界处分割
+            if (end < text.length()) {
+                // 优先在句号、问号、感叹号后分割
+                int lastPunctuation = Math.max(
+                        text.lastIndexOf('。', end),
+                        Math.max(text.lastIndexOf('?', end), text.lastIndexOf('，', end))
+                );
+
+                // 其次在段落标记或换行处分段
+                if (lastPunctuation < start) {
+                    lastPunctuation = text.lastIndexOf('\n', end);
+                }
+
+                // 如果找到合适的分割点，则调整end位置
+                if (lastPunctuation > start) {
+                    end = lastPunctuation + 1; // 包含标点符号
+                }
+            }
+
+            segments.add(text.substring(start, end));
+            start = end;
+        }
+
+        return segments;
+    }
+}
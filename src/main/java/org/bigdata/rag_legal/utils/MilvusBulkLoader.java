@@ -0,0 +1,289 @@
+package org.bigdata.rag_legal.utils;
+
+import org.json.JSONArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * @describe: 可续传的 Milvus 批量入库：按领域分区、行数和字节数切批，多线程并行向量化并按确定性主键 upsert，
+ * 每批成功后写进度日志，全部完成后只刷新、加载一次；已写入但未记日志的批次续传时重放也不会重复
+ * @Date 2025/5/8
+ */
+public class MilvusBulkLoader {
+
+    /** sources 字段的最大字节数，与集合中 VarChar 长度一致，超出的出处截掉 */
+    static final int MAX_SOURCES_BYTES = 4096;
+
+    private static final Logger logger = LoggerFactory.getLogger(MilvusBulkLoader.class);
+
+    /** 每行除文本外的固定开销估算（主键、字段头等） */
+    private static final int ROW_OVERHEAD_BYTES = 64;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final String collectionName;
+    private final int vectorDim;
+    private final int maxBatchRows;
+    private final long maxBatchBytes;
+    private final int parallelism;
+    private final Path journalFile;
+
+    private List<LegalChunk> chunks;
+    private List<Long> ids;
+    private List<String> sources;
+    private List<int[]> batches;
+    private IngestJournal journal;
+    private Embedder embedder = EmbeddingClient::embedInBatches;
+    private Map<LegalChunk, List<String>> mergedSources = Map.of();
+
+    /**
+     * 批次向量化函数
+     */
+    @FunctionalInterface
+    public interface Embedder {
+        List<List<Float>> embed(List<String> texts) throws Exception;
+    }
+
+    /**
+     * @param collectionName 目标集合
+     * @param vectorDim      向量维度，用于估算批次大小
+     * @param maxBatchRows   单批最大行数
+     * @param maxBatchBytes  单批最大字节数（需低于 gRPC 消息大小上限）
+     * @param parallelism    并行插入的批次数，一般与分片数一致
+     * @param journalFile    进度日志文件
+     */
+    public MilvusBulkLoader(String collectionName, int vectorDim, int maxBatchRows, long maxBatchBytes,
+                            int parallelism, Path journalFile) {
+        this.collectionName = collectionName;
+        this.vectorDim = vectorDim;
+        this.maxBatchRows = maxBatchRows;
+        this.maxBatchBytes = maxBatchBytes;
+        this.parallelism = Math.max(1, parallelism);
+        this.journalFile = journalFile;
+    }
+
+    /**
+     * 从系统属性读取配置：rag.ingest.batch-rows、rag.ingest.batch-bytes、
+     * rag.ingest.parallelism、rag.ingest.journal-dir
+     */
+    public static MilvusBulkLoader fromSystemProperties(String collectionName, int vectorDim) {
+        return new MilvusBulkLoader(
+                collectionName,
+                vectorDim,
+                Integer.getInteger("rag.ingest.batch-rows", 2000),
+                Long.getLong("rag.ingest.batch-bytes", 16L * 1024 * 1024),
+                Integer.getInteger("rag.ingest.parallelism", 2),
+                Path.of(System.getProperty("rag.ingest.journal-dir", ".ingest"), collectionName + ".journal")
+        );
+    }
+
+    /**
+     * 替换向量化函数（默认 EmbeddingClient，评估时可换成带缓存的实现）
+     */
+    public MilvusBulkLoader embedder(Embedder embedder) {
+        this.embedder = embedder;
+        return this;
+    }
+
+    /**
+     * @param mergedSources 去重时每个规范分块合并掉的分块出处（NearDuplicateFilter.mergedSources），写入该行的 sources 字段
+     */
+    public MilvusBulkLoader mergedSources(Map<LegalChunk, List<String>> mergedSources) {
+        this.mergedSources = mergedSources;
+        return this;
+    }
+
+    public Path journalFile() {
+        return journalFile;
+    }
+
+    /**
+     * @param chunks 待入库分块（顺序需稳定，续传依赖批次编号）
+     * @return 是否在续传上一次未完成的任务；为 false 时调用方应重建集合
+     */
+    public boolean open(List<LegalChunk> chunks) throws Exception {
+        // 按领域稳定排序，保证每个批次只写一个分区
+        this.chunks = chunks.stream()
+                .sorted(Comparator.comparing(LegalChunk::domain))
+                .collect(Collectors.toList());
+        this.ids = chunkIds(this.chunks);
+        this.sources = this.chunks.stream()
+                .map(chunk -> sourcesJson(chunk, mergedSources.getOrDefault(chunk, List.of())))
+                .collect(Collectors.toList());
+        this.batches = planBatches(this.chunks);
+        this.journal = new IngestJournal(journalFile, fingerprint(this.chunks));
+        if (journal.isResuming()) {
+            logger.info("⏩ 发现未完成的入库任务，已完成 {}/{} 个批次", journal.completedCount(), batches.size());
+        }
+        logger.info("🧮 共 {} 条文本，切分为 {} 个批次，并行度: {}", chunks.size(), batches.size(), parallelism);
+        return journal.isResuming();
+    }
+
+    /**
+     * 执行入库：跳过已完成批次，全部成功后刷新并加载集合，删除进度日志
+     *
+     * @return 本次运行插入的行数
+     */
+    public long run() throws Exception {
+        if (journal == null) {
+            throw new IllegalStateException("请先调用 open()");
+        }
+        long start = System.currentTimeMillis();
+        AtomicLong inserted = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int batchNo = 0; batchNo < batches.size(); batchNo++) {
+                if (journal.isCompleted(batchNo)) {
+                    continue;
+                }
+                int no = batchNo;
+                futures.add(pool.submit(() -> {
+                    long rows = loadBatch(no);
+                    long total = inserted.addAndGet(rows);
+                    logger.info("✅ 批次 {}/{} 完成，{} 行；本次累计 {} 行", no + 1, batches.size(), rows, total);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // 已完成的批次都记在日志里，重新运行即可续传
+                    futures.forEach(f -> f.cancel(true));
+                    throw new RuntimeException("批量入库中断，可重新运行续传: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            journal.close();
+        }
+
+        MilvusService.flush(collectionName);
+        MilvusService.loadCollection(collectionName);
+        journal.delete();
+
+        double seconds = Math.max(1, System.currentTimeMillis() - start) / 1000.0;
+        logger.info("🏁 入库完成：本次插入 {} 行，耗时 {} s，{} 行/秒",
+                inserted.get(), String.format("%.1f", seconds), String.format("%.1f", inserted.get() / seconds));
+        return inserted.get();
+    }
+
+    private long loadBatch(int batchNo) throws Exception {
+        int[] range = batches.get(batchNo);
+        List<String> batchTexts = chunks.subList(range[0], range[1]).stream()
+                .map(LegalChunk::text)
+                .collect(Collectors.toList());
+        List<Long> batchIds = ids.subList(range[0], range[1]);
+        List<String> batchSources = sources.subList(range[0], range[1]);
+        String partition = chunks.get(range[0]).domain().partition();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<List<Float>> vectors = embedder.embed(batchTexts);
+                long rows = MilvusService.upsertBatch(collectionName, partition, batchIds, batchTexts, batchSources, vectors);
+                journal.commit(batchNo, rows);
+                return rows;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("⚠️ 批次 {} 第 {} 次失败，{} ms 后重试: {}", batchNo + 1, attempt, 1000L * attempt, e.getMessage());
+                Thread.sleep(1000L * attempt);
+            }
+        }
+    }
+
+    /**
+     * 确定性主键：来源（法律名称）+ 该来源内的分块序号的哈希，取非负 63 位；
+     * 同一语料每次算出的主键相同，批次重放时 upsert 覆盖而不是重复插入
+     */
+    static List<Long> chunkIds(List<LegalChunk> chunks) throws Exception {
+        Map<String, Integer> seen = new HashMap<>();
+        List<Long> result = new ArrayList<>(chunks.size());
+        for (LegalChunk chunk : chunks) {
+            int index = seen.merge(chunk.law(), 1, Integer::sum) - 1;
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((chunk.law() + "#" + index).getBytes(StandardCharsets.UTF_8));
+            result.add(ByteBuffer.wrap(hash).getLong() & Long.MAX_VALUE);
+        }
+        return result;
+    }
+
+    /**
+     * 分块自身出处 + 合并掉的重复分块出处，去重后写成 JSON 数组；超过字段长度时丢弃靠后的出处
+     */
+    static String sourcesJson(LegalChunk chunk, List<String> merged) {
+        JSONArray array = new JSONArray();
+        List<String> all = new ArrayList<>();
+        all.add(chunk.source());
+        all.addAll(merged);
+        for (String source : all.stream().distinct().toList()) {
+            array.put(source);
+            if (array.toString().getBytes(StandardCharsets.UTF_8).length > MAX_SOURCES_BYTES) {
+                array.remove(array.length() - 1);
+                break;
+            }
+        }
+        return array.toString();
+    }
+
+    /**
+     * 按领域、行数和估算字节数切分批次，返回 [起始下标, 结束下标)
+     */
+    List<int[]> planBatches(List<LegalChunk> chunks) {
+        List<int[]> plan = new ArrayList<>();
+        int start = 0;
+        long bytes = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            long rowBytes = (long) vectorDim * Float.BYTES
+                    + chunks.get(i).text().getBytes(StandardCharsets.UTF_8).length + ROW_OVERHEAD_BYTES;
+            boolean domainChanged = i > start && chunks.get(i).domain() != chunks.get(start).domain();
+            if (i > start && (domainChanged || i - start >= maxBatchRows || bytes + rowBytes > maxBatchBytes)) {
+                plan.add(new int[]{start, i});
+                start = i;
+                bytes = 0;
+            }
+            bytes += rowBytes;
+        }
+        if (start < chunks.size()) {
+            plan.add(new int[]{start, chunks.size()});
+        }
+        return plan;
+    }
+
+    /**
+     * 语料内容 + 批次规划参数的指纹，任一变化都不能续传
+     */
+    private String fingerprint(List<LegalChunk> chunks) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        // schema-v2：确定性主键 + upsert + sources 字段，旧版集合的进度日志不能续传
+        digest.update(("schema-v2|" + collectionName + "|" + EmbeddingClient.provider().name() + "|" + vectorDim + "|"
+                + MilvusService.getStorage() + "|" + maxBatchRows + "|" + maxBatchBytes + "|").getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < chunks.size(); i++) {
+            LegalChunk chunk = chunks.get(i);
+            digest.update((chunk.domain() + "|" + sources.get(i) + "|" + chunk.text()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -2,31 +2,45 @@ package org.bigdata.rag_legal.utils;
 
 import io.milvus.client.MilvusServiceClient;
 import io.milvus.grpc.DataType;
+import io.milvus.grpc.DescribeCollectionResponse;
+import io.milvus.grpc.FieldSchema;
 import io.milvus.grpc.MutationResult;
+import io.milvus.grpc.QueryResults;
 import io.milvus.grpc.SearchResults;
+import io.milvus.grpc.ShowCollectionsResponse;
+import io.milvus.grpc.ShowPartitionsResponse;
 import io.milvus.param.ConnectParam;
 import io.milvus.param.IndexType;
 import io.milvus.param.MetricType;
 import io.milvus.param.R;
+import io.milvus.param.RpcStatus;
+import io.milvus.param.alias.AlterAliasParam;
+import io.milvus.param.alias.CreateAliasParam;
 import io.milvus.param.collection.*;
 import io.milvus.param.dml.InsertParam;
+import io.milvus.param.dml.QueryParam;
 import io.milvus.param.dml.SearchParam;
+import io.milvus.param.dml.UpsertParam;
 import io.milvus.param.index.CreateIndexParam;
+import io.milvus.param.partition.CreatePartitionParam;
+import io.milvus.param.partition.ShowPartitionsParam;
+import io.milvus.response.QueryResultsWrapper;
 import io.milvus.response.SearchResultsWrapper;
 import org.json.JSONArray;
-import org.json.JSONObject;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
+
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * @describe: 封装了 Milvus 的基本操作，简化使用
@@ -34,19 +48,67 @@ import java.util.List;
  * @Date 2025/4/14
  */
 public class MilvusService {
-    private static MilvusServiceClient client;
+    private static volatile MilvusServiceClient client;
+
+    /** 向量存储方式与重排候选倍数，入库和检索两端必须一致 */
+    private static volatile VectorStorage storage =
+            VectorStorage.valueOf(System.getProperty("rag.embedding.storage", "FLOAT"));
+    private static volatile int rerankFactor = Integer.getInteger("rag.search.rerank-factor", 4);
+
+    /** 别名解析结果的缓存时间；切换后最多这么久内的检索仍记在旧版本上，只会让排空等得更久 */
+    private static final long RESOLVE_TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /** 进行中的检索数，按别名解析后的真实集合名统计，蓝绿切换据此判断旧版本上的检索是否已结束 */
+    private static final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private static final Map<String, Resolved> resolved = new ConcurrentHashMap<>();
 
     /**
-     * 静态初始化块确保 client 在类加载时初始化
+     * @param hasSources 集合是否有 sources 字段（旧版本集合没有）
      */
-    static {
+    private record Resolved(String collectionName, boolean hasSources, long expiresAt) {
+    }
+
+    /**
+     * @param vectorStorage 向量存储方式
+     * @param factor        二值存储时，先按汉明距离召回 topK * factor 个候选再用符号位与查询向量的非对称距离重排
+     */
+    public static void configureStorage(VectorStorage vectorStorage, int factor) {
+        storage = vectorStorage;
+        rerankFactor = Math.max(1, factor);
+    }
+
+    public static VectorStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * @param host Milvus 地址
+     * @param port Milvus 端口
+     *             显式建立连接（应用启动时调用）；已连接时直接返回
+     */
+    public static synchronized void connect(String host, int port) {
+        if (client != null) {
+            return;
+        }
         client = new MilvusServiceClient(
                 ConnectParam.newBuilder()
-                        .withHost("localhost")
-                        .withPort(19530)
+                        .withHost(host)
+                        .withPort(port)
                         .build()
         );
-        System.out.println("🟢 Milvus 客户端已初始化");
+        System.out.println("🟢 Milvus 客户端已初始化: " + host + ":" + port);
+    }
+
+    /**
+     * 获取客户端；未显式连接时（如命令行入库工具）按系统属性 rag.milvus.host / rag.milvus.port 连接
+     */
+    private static MilvusServiceClient client() {
+        MilvusServiceClient c = client;
+        if (c == null) {
+            connect(System.getProperty("rag.milvus.host", "localhost"), Integer.getInteger("rag.milvus.port", 19530));
+            c = client;
+        }
+        return c;
     }
 
     /**
@@ -58,13 +120,10 @@ public class MilvusService {
     public static void insert(String collectionName, List<String> texts, List<List<Float>> vectors) {
         InsertParam insertParam = InsertParam.newBuilder()
                 .withCollectionName(collectionName)
-                .withFields(Arrays.asList(
-                        new InsertParam.Field("embedding", vectors),
-                        new InsertParam.Field("text", texts)
-                ))
+                .withFields(buildFields(randomIds(texts.size()), texts, null, vectors))
                 .build();
 
-        R<MutationResult> insertResult = client.insert(insertParam);
+        R<MutationResult> insertResult = client().insert(insertParam);
         System.out.println("✅ 插入数据行数: " + insertResult.getData().getInsertCnt());
     }
 
@@ -79,13 +138,10 @@ public class MilvusService {
 
         InsertParam insertParam = InsertParam.newBuilder()
                 .withCollectionName(collectionName)
-                .withFields(Arrays.asList(
-                        new InsertParam.Field("embedding", vectors),
-                        new InsertParam.Field("text", texts)
-                ))
+                .withFields(buildFields(randomIds(texts.size()), texts, null, vectors))
                 .build();
 
-        R<MutationResult> insertResult = client.insert(insertParam);
+        R<MutationResult> insertResult = client().insert(insertParam);
         long insertCount = insertResult.getData().getInsertCnt();
         System.out.println("✅ 插入成功: " + insertCount + " 条数据");
 
@@ -93,50 +149,247 @@ public class MilvusService {
         FlushParam flushParam = FlushParam.newBuilder()
                 .withCollectionNames(Collections.singletonList(collectionName))
                 .build();
-        client.flush(flushParam);
+        client().flush(flushParam);
         System.out.println("🔄 集合已刷新: " + collectionName);
 
         // 加载集合
         LoadCollectionParam loadParam = LoadCollectionParam.newBuilder()
                 .withCollectionName(collectionName)
                 .build();
-        client.loadCollection(loadParam);
+        client().loadCollection(loadParam);
         System.out.println("📦 集合已加载进内存: " + collectionName);
 
         return insertCount;
     }
 
+    /**
+     * @param collectionName 集合名称
+     * @param partitionName  分区名称，为空时写入默认分区
+     * @param ids            确定性主键（同一分块每次入库都相同）
+     * @param texts          文本数据列表
+     * @param sources        每行的出处 JSON 数组（自身 + 去重合并掉的分块）
+     * @param vectors        向量数据列表
+     *                       按主键 upsert 单个批次（供批量入库使用，不刷新、不加载）；
+     *                       续传时重放已写入但未记入进度日志的批次不会产生重复行
+     */
+    public static long upsertBatch(String collectionName, String partitionName, List<Long> ids, List<String> texts,
+                                   List<String> sources, List<List<Float>> vectors) {
+        UpsertParam.Builder builder = UpsertParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withFields(buildFields(ids, texts, sources, vectors));
+        if (partitionName != null) {
+            builder.withPartitionName(partitionName);
+        }
+
+        R<MutationResult> result = client().upsert(builder.build());
+        if (result.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("写入失败: " + result.getMessage(), result.getException());
+        }
+        return result.getData().getUpsertCnt();
+    }
+
+    /**
+     * @param collectionName 集合名称
+     *                       刷新集合，将已插入数据持久化
+     */
+    public static void flush(String collectionName) {
+        FlushParam flushParam = FlushParam.newBuilder()
+                .withCollectionNames(Collections.singletonList(collectionName))
+                .build();
+        client().flush(flushParam);
+        System.out.println("🔄 集合已刷新: " + collectionName);
+    }
+
     /**
      * @param queryVector    查询向量
      * @param collectionName 集合名称
      *                       检索向量，返回 Top K 匹配结果
      */
     public static List<VectorSearchResult> search(String collectionName, List<Float> queryVector) {
-        SearchParam searchParam = SearchParam.newBuilder()
+        return search(collectionName, queryVector, 3);
+    }
+
+    /**
+     * @param queryVector    查询向量
+     * @param collectionName 集合名称
+     * @param topK           返回条数
+     *                       检索向量；二值存储时多召回候选，再按非对称距离重排
+     */
+    public static List<VectorSearchResult> search(String collectionName, List<Float> queryVector, int topK) {
+        return search(collectionName, null, queryVector, topK);
+    }
+
+    /**
+     * @param collectionName 集合名称
+     * @param partitionNames 只在这些分区中检索，为空时检索整个集合
+     * @param queryVector    查询向量
+     * @param topK           返回条数
+     *                       按分区检索向量
+     */
+    public static List<VectorSearchResult> search(String collectionName, List<String> partitionNames,
+                                                  List<Float> queryVector, int topK) {
+        return searchBatch(collectionName, partitionNames, Collections.singletonList(queryVector), topK).get(0);
+    }
+
+    /**
+     * 多向量检索：一次请求检索多个查询向量，结果顺序与 queryVectors 一致
+     */
+    public static List<List<VectorSearchResult>> searchBatch(String collectionName, List<String> partitionNames,
+                                                             List<List<Float>> queryVectors, int topK) {
+        Resolved target = resolve(collectionName);
+        AtomicInteger counter = inFlight.computeIfAbsent(target.collectionName(), k -> new AtomicInteger());
+        counter.incrementAndGet();
+        try {
+            return doSearchBatch(collectionName, target.hasSources(), partitionNames, queryVectors, topK);
+        } finally {
+            counter.decrementAndGet();
+        }
+    }
+
+    /**
+     * 当前进程中各真实集合上进行中的检索数（只含大于 0 的）
+     */
+    public static Map<String, Integer> inFlightSearches() {
+        Map<String, Integer> counts = new TreeMap<>();
+        inFlight.forEach((name, counter) -> {
+            int count = counter.get();
+            if (count > 0) {
+                counts.put(name, count);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * 别名解析为真实集合名和字段情况（带短时缓存，不给每次检索增加一次 RPC）；解析失败时按原名统计、不取 sources
+     */
+    private static Resolved resolve(String collectionName) {
+        long now = System.nanoTime();
+        Resolved cached = resolved.get(collectionName);
+        if (cached != null && now - cached.expiresAt() < 0) {
+            return cached;
+        }
+        String name = collectionName;
+        boolean hasSources = false;
+        try {
+            R<DescribeCollectionResponse> result = client().describeCollection(DescribeCollectionParam.newBuilder()
+                    .withCollectionName(collectionName)
+                    .build());
+            if (result.getStatus() == R.Status.Success.getCode()) {
+                if (!result.getData().getSchema().getName().isEmpty()) {
+                    name = result.getData().getSchema().getName();
+                }
+                hasSources = result.getData().getSchema().getFieldsList().stream()
+                        .map(FieldSchema::getName)
+                        .anyMatch("sources"::equals);
+            }
+        } catch (RuntimeException e) {
+            // 解析失败不影响检索本身
+        }
+        Resolved target = new Resolved(name, hasSources, now + RESOLVE_TTL_NANOS);
+        resolved.put(collectionName, target);
+        return target;
+    }
+
+    private static List<List<VectorSearchResult>> doSearchBatch(String collectionName, boolean hasSources,
+                                                                List<String> partitionNames,
+                                                                List<List<Float>> queryVectors, int topK) {
+        List<String> outFields = hasSources ? Arrays.asList("id", "text", "sources") : Arrays.asList("id", "text");
+        VectorStorage mode = storage;
+        int candidates = mode == VectorStorage.FLOAT ? topK : topK * rerankFactor;
+
+        SearchParam.Builder builder = SearchParam.newBuilder()
                 .withCollectionName(collectionName)
-                .withMetricType(MetricType.L2)
-                .withOutFields(Arrays.asList("id", "text"))
-                .withTopK(3)
-                .withVectors(Collections.singletonList(queryVector))
-                .withVectorFieldName("embedding")
-                .withParams("{\"nprobe\": 10}")
-                .build();
+                .withTopK(candidates)
+                .withVectorFieldName("embedding");
+        if (partitionNames != null && !partitionNames.isEmpty()) {
+            builder.withPartitionNames(partitionNames);
+        }
+        switch (mode) {
+            case FLOAT -> builder.withMetricType(MetricType.L2)
+                    .withOutFields(outFields)
+                    .withVectors(queryVectors)
+                    .withParams("{\"nprobe\": 10}");
+            case BINARY -> builder.withMetricType(MetricType.HAMMING)
+                    .withOutFields(concat(outFields, "embedding"))
+                    .withVectors(queryVectors.stream().map(EmbeddingQuantizer::toBinary).toList())
+                    .withParams("{}");
+        }
 
-        R<SearchResults> search = client.search(searchParam);
+        R<SearchResults> search = client().search(builder.build());
+        if (search.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("检索失败: " + search.getMessage(), search.getException());
+        }
         SearchResultsWrapper wrapper = new SearchResultsWrapper(search.getData().getResults());
 
-        List<SearchResultsWrapper.IDScore> scores = wrapper.getIDScore(0);
-        List<String> texts = (List<String>) wrapper.getFieldWrapper("text").getFieldData();
+        List<List<VectorSearchResult>> all = new ArrayList<>(queryVectors.size());
+        for (int q = 0; q < queryVectors.size(); q++) {
+            List<Float> queryVector = queryVectors.get(q);
+            List<SearchResultsWrapper.IDScore> scores = wrapper.getIDScore(q);
+            List<VectorSearchResult> results = new ArrayList<>();
+            if (scores.isEmpty()) {
+                all.add(results);
+                continue;
+            }
+            List<String> texts = (List<String>) wrapper.getFieldData("text", q);
+            List<String> sources = hasSources ? (List<String>) wrapper.getFieldData("sources", q) : null;
+            for (int i = 0; i < scores.size(); i++) {
+                long id = scores.get(i).getLongID();
+                float score = scores.get(i).getScore();
+                String text = texts.get(i);
+                if (mode == VectorStorage.BINARY) {
+                    // 读回的就是索引里的符号位，不需要另存高精度向量
+                    ByteBuffer bits = (ByteBuffer) wrapper.getFieldData("embedding", q).get(i);
+                    score = EmbeddingQuantizer.l2(queryVector, EmbeddingQuantizer.fromBinary(bits));
+                }
+                results.add(new VectorSearchResult(id, score, text, sources != null ? parseSources(sources.get(i)) : List.of()));
+            }
 
-        List<VectorSearchResult> results = new ArrayList<>();
-        for (int i = 0; i < scores.size(); i++) {
-            long id = scores.get(i).getLongID();
-            float score = scores.get(i).getScore();
-            String text = texts.get(i);
-            results.add(new VectorSearchResult(id, score, text));
+            if (mode != VectorStorage.FLOAT) {
+                results.sort(Comparator.comparingDouble(VectorSearchResult::score));
+                results = new ArrayList<>(results.subList(0, Math.min(topK, results.size())));
+            }
+            all.add(results);
         }
+        return all;
+    }
 
-        return results;
+    private static List<String> concat(List<String> fields, String field) {
+        List<String> result = new ArrayList<>(fields);
+        result.add(field);
+        return result;
+    }
+
+    private static List<String> parseSources(String json) {
+        JSONArray array = new JSONArray(json);
+        List<String> sources = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            sources.add(array.getString(i));
+        }
+        return sources;
+    }
+
+    /**
+     * 没有来源信息的旧插入接口使用随机主键
+     */
+    private static List<Long> randomIds(int count) {
+        return ThreadLocalRandom.current().longs(count, 0, Long.MAX_VALUE).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * 按当前存储方式构造插入字段；sources 为空时每行写空数组
+     */
+    private static List<InsertParam.Field> buildFields(List<Long> ids, List<String> texts, List<String> sources,
+                                                       List<List<Float>> vectors) {
+        List<?> embeddings = storage == VectorStorage.BINARY
+                ? vectors.stream().map(EmbeddingQuantizer::toBinary).collect(Collectors.toList())
+                : vectors;
+        return Arrays.asList(
+                new InsertParam.Field("id", ids),
+                new InsertParam.Field("embedding", embeddings),
+                new InsertParam.Field("text", texts),
+                new InsertParam.Field("sources", sources != null ? sources : Collections.nCopies(texts.size(), "[]"))
+        );
     }
 
     /**
@@ -148,7 +401,7 @@ public class MilvusService {
         HasCollectionParam hasCollectionParam = HasCollectionParam.newBuilder()
                 .withCollectionName(collectionName)
                 .build();
-        R<Boolean> hasCollection = client.hasCollection(hasCollectionParam);
+        R<Boolean> hasCollection = client().hasCollection(hasCollectionParam);
 //        if (Boolean.TRUE.equals(hasCollection.getData())) {
 //            System.out.println("✅ 集合已存在: " + collectionName);
 //            return;
@@ -158,22 +411,22 @@ public class MilvusService {
             DropCollectionParam dropCollectionParam = DropCollectionParam.newBuilder()
                     .withCollectionName(collectionName)
                     .build();
-            client.dropCollection(dropCollectionParam);
+            client().dropCollection(dropCollectionParam);
             System.out.println("⚠️ 已删除旧集合: " + collectionName);
         }
 
         FieldType idField = FieldType.newBuilder()
                 .withName("id")
-                .withDescription("主键ID")
+                .withDescription("主键ID（来源 + 分块序号的哈希，续传可幂等重放）")
                 .withDataType(DataType.Int64)
                 .withPrimaryKey(true)
-                .withAutoID(true)
+                .withAutoID(false)
                 .build();
 
         FieldType vectorField = FieldType.newBuilder()
                 .withName("embedding")
                 .withDescription("向量字段")
-                .withDataType(DataType.FloatVector)
+                .withDataType(storage == VectorStorage.BINARY ? DataType.BinaryVector : DataType.FloatVector)
                 .withDimension(dim)
                 .build();
 
@@ -184,6 +437,13 @@ public class MilvusService {
                 .withMaxLength(2000)
                 .build();
 
+        FieldType sourcesField = FieldType.newBuilder()
+                .withName("sources")
+                .withDescription("出处 JSON 数组：本分块 + 去重时合并到本分块的重复分块")
+                .withDataType(DataType.VarChar)
+                .withMaxLength(MilvusBulkLoader.MAX_SOURCES_BYTES)
+                .build();
+
         CreateCollectionParam createCollectionParam = CreateCollectionParam.newBuilder()
                 .withCollectionName(collectionName)
                 .withDescription("自动创建集合")
@@ -191,29 +451,100 @@ public class MilvusService {
                 .addFieldType(idField)
                 .addFieldType(vectorField)
                 .addFieldType(textField)
+                .addFieldType(sourcesField)
                 .build();
 
-        client.createCollection(createCollectionParam);
+        client().createCollection(createCollectionParam);
         System.out.println("✅ 成功创建集合: " + collectionName);
     }
 
+    /**
+     * @param collectionName 集合名称
+     * @param partitionNames 分区名称列表
+     *                       创建分区（已存在的跳过）
+     */
+    public static void createPartitions(String collectionName, List<String> partitionNames) {
+        List<String> existing = listPartitions(collectionName);
+        for (String partitionName : partitionNames) {
+            if (existing.contains(partitionName)) {
+                continue;
+            }
+            R<RpcStatus> result = client().createPartition(CreatePartitionParam.newBuilder()
+                    .withCollectionName(collectionName)
+                    .withPartitionName(partitionName)
+                    .build());
+            if (result.getStatus() != R.Status.Success.getCode()) {
+                throw new RuntimeException("创建分区失败: " + partitionName + ", " + result.getMessage(), result.getException());
+            }
+            System.out.println("✅ 成功创建分区: " + collectionName + "/" + partitionName);
+        }
+    }
+
+    /**
+     * @param collectionName 集合名称
+     *                       列出集合的所有分区名称
+     */
+    public static List<String> listPartitions(String collectionName) {
+        R<ShowPartitionsResponse> result = client().showPartitions(ShowPartitionsParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        if (result.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("查询分区失败: " + result.getMessage(), result.getException());
+        }
+        return new ArrayList<>(result.getData().getPartitionNamesList());
+    }
+
+    /**
+     * @param collectionName 集合名称
+     * @param partitionName  分区名称
+     * @param limit          最多取多少条
+     *                       从分区中取一批向量（用于计算分区质心）；二值存储时把符号位还原为单位向量
+     */
+    public static List<float[]> sampleVectors(String collectionName, String partitionName, int limit) {
+        String field = "embedding";
+        R<QueryResults> result = client().query(QueryParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withPartitionNames(Collections.singletonList(partitionName))
+                .withExpr("id >= 0")
+                .withOutFields(Collections.singletonList(field))
+                .withLimit((long) limit)
+                .build());
+        if (result.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("查询向量失败: " + result.getMessage(), result.getException());
+        }
+
+        List<float[]> vectors = new ArrayList<>();
+        for (Object value : new QueryResultsWrapper(result.getData()).getFieldWrapper(field).getFieldData()) {
+            if (value instanceof ByteBuffer bits) {
+                vectors.add(EmbeddingQuantizer.fromBinary(bits));
+            } else {
+                vectors.add(EmbeddingQuantizer.toArray((List<Float>) value));
+            }
+        }
+        return vectors;
+    }
+
     /**
      * @param vectorField    向量字段名称
      * @param collectionName 集合名称
      *                       为向量字段创建基础索引
      */
     public static void createBasicIndex(String collectionName, String vectorField) {
-        CreateIndexParam indexParam = CreateIndexParam.newBuilder()
+        CreateIndexParam.Builder indexParam = CreateIndexParam.newBuilder()
                 .withCollectionName(collectionName)
                 .withFieldName(vectorField)
-                .withIndexName("basic_index")
-                .withIndexType(IndexType.FLAT)
-                .withMetricType(MetricType.L2)
-                .withExtraParam("{}")
-                .build();
+                .withIndexName("basic_index");
+        switch (storage) {
+            case FLOAT -> indexParam.withIndexType(IndexType.FLAT)
+                    .withMetricType(MetricType.L2)
+                    .withExtraParam("{}");
+            case BINARY -> indexParam.withIndexType(IndexType.BIN_FLAT)
+                    .withMetricType(MetricType.HAMMING)
+                    .withExtraParam("{}");
+        }
 
-        client.createIndex(indexParam);
-        System.out.println("✅ 向量字段创建索引完成: " + vectorField);
+        client().createIndex(indexParam.build());
+        System.out.println("✅ 向量字段创建索引完成: " + vectorField + "（" + storage + "）");
     }
 
     /**
@@ -224,166 +555,93 @@ public class MilvusService {
         LoadCollectionParam loadParam = LoadCollectionParam.newBuilder()
                 .withCollectionName(collectionName)
                 .build();
-        client.loadCollection(loadParam);
+        R<RpcStatus> loadResult = client().loadCollection(loadParam);
+        if (loadResult.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("集合加载失败: " + loadResult.getMessage(), loadResult.getException());
+        }
         System.out.println("✅ 集合已加载进内存: " + collectionName);
     }
 
 
 
     /**
-     * 关闭连接
+     * 列出所有真实集合（不含别名）
      */
-    public static void close() {
-        client.close();
+    public static List<String> listCollections() {
+        R<ShowCollectionsResponse> result = client().showCollections(ShowCollectionsParam.newBuilder().build());
+        if (result.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("查询集合失败: " + result.getMessage(), result.getException());
+        }
+        return new ArrayList<>(result.getData().getCollectionNamesList());
     }
 
     /**
-     * @describe: 单一职责，生成向量
-     * @Author JasonZhang
-     * @Date 2025/4/14
-     **/
-    public static class EmbeddingClient {
-
-        private static final Logger logger = LoggerFactory.getLogger(EmbeddingClient.class);
-
-        private static final String API_URL = "https://dashscope.aliyuncs.com/compatible-mode/v1/embeddings";
-        private static final String API_KEY = System.getenv("DASHSCOPE_API_KEY");
-
-        private static final HttpClient httpClient = HttpClient.newHttpClient();
-
-        public EmbeddingClient() {
-            if (API_KEY == null || API_KEY.isEmpty()) {
-                throw new RuntimeException("❌ 未检测到 DASHSCOPE_API_KEY，请设置环境变量");
-            }
-            logger.info("✅ 成功获取 API_KEY，长度: {}", API_KEY.length());
+     * @param collectionName 集合名称或别名
+     * @return 集合 ID；别名切换后同一名称对应的 ID 会变化，不存在时返回 -1
+     */
+    public static long collectionId(String collectionName) {
+        R<DescribeCollectionResponse> result = client().describeCollection(DescribeCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        if (result.getStatus() != R.Status.Success.getCode()) {
+            return -1;
         }
+        return result.getData().getCollectionID();
+    }
 
-        /**
-         * 单条文本向量化
-         */
-        public static List<Float> embed(String text) throws Exception {
-            List<List<Float>> results = embedInBatches(Collections.singletonList(text));
-            return results.isEmpty() ? Collections.emptyList() : results.get(0);
+    /**
+     * 把别名指向指定集合：别名已存在时原子切换，否则新建
+     */
+    public static void switchAlias(String alias, String collectionName) {
+        R<RpcStatus> altered = client().alterAlias(AlterAliasParam.newBuilder()
+                .withAlias(alias)
+                .withCollectionName(collectionName)
+                .build());
+        if (altered.getStatus() == R.Status.Success.getCode()) {
+            System.out.println("🔀 别名已切换: " + alias + " → " + collectionName);
+            return;
         }
-
-        /**
-         * 多条文本向量化
-         */
-    //    public static List<List<Float>> embed(List<String> texts) throws Exception {
-    //        logger.info("📨 准备向量化文本，共计: {} 条", texts.size());
-    //
-    //        JSONObject requestBody = new JSONObject();
-    //        requestBody.put("model", "text-embedding-v3");
-    //        requestBody.put("input", new JSONArray(texts));
-    //        requestBody.put("dimensions", 1024);
-    //        requestBody.put("encoding_format", "float");
-    //
-    //        HttpRequest request = HttpRequest.newBuilder()
-    //                .uri(URI.create(API_URL))
-    //                .header("Authorization", "Bearer " + API_KEY)
-    //                .header("Content-Type", "application/json")
-    //                .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString(), StandardCharsets.UTF_8))
-    //                .build();
-    //
-    //        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-    //
-    //        if (response.statusCode() != 200) {
-    //            logger.error("❌ 向量化请求失败，状态码: {}, 响应体: {}", response.statusCode(), response.body());
-    //            throw new RuntimeException("向量请求失败: " + response.statusCode());
-    //        }
-    //
-    //        String responseBody = response.body();
-    //        logger.info("✅ 请求成功，响应预览: {}", responseBody.length() > 60 ? responseBody.substring(0, 60) + "..." : responseBody);
-    //
-    //        return extractEmbeddings(responseBody);
-    //    }
-        public static List<List<Float>> embedInBatches(List<String> texts) throws Exception {
-            logger.info("📨 准备向量化文本，共计: {} 条", texts.size());
-            final int BATCH_SIZE = 10;  // 每次最多处理10条文本
-            List<List<Float>> allEmbeddings = new ArrayList<>();
-
-            // 拆分批次并循环处理
-            for (int i = 0; i < texts.size(); i += BATCH_SIZE) {
-                int end = Math.min(i + BATCH_SIZE, texts.size());
-                List<String> batchTexts = texts.subList(i, end);
-                logger.info("处理批次 {}: 处理 {} 条文本", (i/BATCH_SIZE + 1), batchTexts.size());
-
-                // 调用原始向量化方法处理当前批次
-                List<List<Float>> batchEmbeddings = embedBatch(batchTexts);
-                allEmbeddings.addAll(batchEmbeddings);
-            }
-
-            logger.info("✅ 向量化处理完成，共生成 {} 个向量", allEmbeddings.size());
-            return allEmbeddings;
+        R<RpcStatus> created = client().createAlias(CreateAliasParam.newBuilder()
+                .withAlias(alias)
+                .withCollectionName(collectionName)
+                .build());
+        if (created.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("别名切换失败: " + altered.getMessage() + " / " + created.getMessage(),
+                    created.getException());
         }
+        System.out.println("🔀 别名已创建: " + alias + " → " + collectionName);
+    }
 
-        // 单次向量化处理（限制10条以内）
-        private static List<List<Float>> embedBatch(List<String> batchTexts) throws Exception {
-            if (batchTexts.size() > 10) {
-                throw new IllegalArgumentException("批次大小不能超过10，当前传入: " + batchTexts.size());
-            }
-
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("model", "text-embedding-v3");
-            requestBody.put("input", new JSONArray(batchTexts));
-            requestBody.put("dimensions", 1024);
-            requestBody.put("encoding_format", "float");
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(API_URL))
-                    .header("Authorization", "Bearer " + API_KEY)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString(), StandardCharsets.UTF_8))
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() != 200) {
-                logger.error("❌ 向量化批次请求失败，状态码: {}, 响应体: {}",
-                        response.statusCode(), response.body());
-                throw new RuntimeException("向量批次请求失败: " + response.statusCode());
-            }
-
-            String responseBody = response.body();
-            logger.info("✅ 批次请求成功，响应预览: {}",
-                    responseBody.length() > 60 ? responseBody.substring(0, 60) + "..." : responseBody);
-
-            return extractEmbeddings(responseBody);
+    /**
+     * 从内存中释放集合（保留数据，可用于回滚）
+     */
+    public static void releaseCollection(String collectionName) {
+        R<RpcStatus> result = client().releaseCollection(ReleaseCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        if (result.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("集合释放失败: " + result.getMessage(), result.getException());
         }
+        System.out.println("📤 集合已从内存释放: " + collectionName);
+    }
 
-        /**
-         * 从响应中提取向量
-         */
-        private static List<List<Float>> extractEmbeddings(String json) {
-            logger.info("🔍 正在提取向量...");
-            List<List<Float>> vectors = new ArrayList<>();
-            JSONObject jsonObject = new JSONObject(json);
-            JSONArray dataArray = jsonObject.getJSONArray("data");
-
-            for (int i = 0; i < dataArray.length(); i++) {
-                JSONArray vectorArray = dataArray.getJSONObject(i).getJSONArray("embedding");
-                List<Float> vector = new ArrayList<>();
-                for (int j = 0; j < vectorArray.length(); j++) {
-                    vector.add((float) vectorArray.getDouble(j));
-                }
-                vectors.add(vector);
-            }
-
-            logger.info("📦 提取完成，共计向量条数: {}", vectors.size());
-            return vectors;
+    public static void dropCollection(String collectionName) {
+        R<RpcStatus> result = client().dropCollection(DropCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        if (result.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("集合删除失败: " + result.getMessage(), result.getException());
         }
+        System.out.println("🗑️ 已删除集合: " + collectionName);
+    }
 
-        /**
-         * 示例主方法（可删除）
-         */
-        public static void main(String[] args) throws Exception {
-            List<String> inputs = Arrays.asList(
-                    "中华人民共和国刑法（第232条）：故意杀人的，处死刑、无期徒刑或者十年以上有期徒刑。",
-                    "中华人民共和国民法典（第123条）：侵权责任法是调整侵权行为所产生的法律关系的法律。",
-                    "中华人民共和国公司法（第45条）：股东会是公司的最高权力机构。"
-            );
-            List<List<Float>> vectors = embedInBatches(inputs);
-            System.out.println("✔ 向量维度：" + vectors.get(0).size());
+    /**
+     * 关闭连接
+     */
+    public static synchronized void close() {
+        if (client != null) {
+            client.close();
+            client = null;
         }
     }
 }
@@ -0,0 +1,288 @@
+package org.bigdata.rag_legal.utils;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+
+/**
+ * @describe: 入库前的近似重复分块过滤：按字符 shingle 计算 MinHash 签名，用 LSH 分桶找候选，
+ * 再用精确 Jaccard 相似度确认；重复分块不入库，只在报告中关联到保留的规范分块。
+ * 只在同一法律领域内去重：每个领域是一个分区，检索只查路由到的分区，跨领域去重会让该领域查不到这条内容。
+ * 法律条文里一个数字或刑种的差别就是不同的规定，文字再相似也不能合并：
+ * 还要求条款编号相同，且数字（含量刑幅度的以上/以下）、刑罚种类和情态词按顺序完全一致
+ * @Date 2025/5/23
+ */
+public class NearDuplicateFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearDuplicateFilter.class);
+
+    /** 签名长度 = BANDS × ROWS；16 × 8 的 LSH 候选阈值约为 0.7 */
+    private static final int BANDS = 16;
+    private static final int ROWS = 8;
+    private static final int NUM_HASHES = BANDS * ROWS;
+
+    private static final long[] SEEDS = new long[NUM_HASHES];
+
+    /**
+     * 必须逐字一致的法律要素：数字及其单位和幅度（“三年以下”“十五年以上”“5000元”），
+     * 刑罚/处罚种类，情态与连接词（“可以”与“应当”、“并处”与“单处”意义不同）
+     */
+    private static final Pattern LEGAL_TERM = Pattern.compile(
+            "[0-9.〇零一二两三四五六七八九十百千万亿]+(?:周岁|个月|年|月|日|天|倍|元|%|‰)?(?:以上|以下|以内|不满)?"
+                    + "|有期徒刑|无期徒刑|死刑|拘役|管制|罚金|没收财产|剥夺政治权利|缓刑|罚款|拘留|警告|吊销|暂扣|责令"
+                    + "|可以|应当|必须|不得|禁止|并处|单处|或者|并且|免除|从轻|减轻|从重|加重");
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            seed = mix(seed + i);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private final int shingleSize;
+    private final double threshold;
+    private final List<Duplicate> duplicates = new ArrayList<>();
+
+    /**
+     * 被过滤掉的分块及其对应的规范分块
+     */
+    public record Duplicate(LegalChunk duplicate, LegalChunk canonical, double similarity) {
+    }
+
+    /**
+     * @param shingleSize 字符 shingle 长度
+     * @param threshold   Jaccard 相似度达到该值视为重复
+     */
+    public NearDuplicateFilter(int shingleSize, double threshold) {
+        this.shingleSize = Math.max(1, shingleSize);
+        this.threshold = threshold;
+    }
+
+    /**
+     * 从系统属性读取配置：rag.ingest.dedup-shingle、rag.ingest.dedup-threshold
+     */
+    public static NearDuplicateFilter fromSystemProperties() {
+        return new NearDuplicateFilter(
+                Integer.getInteger("rag.ingest.dedup-shingle", 5),
+                Double.parseDouble(System.getProperty("rag.ingest.dedup-threshold", "0.9")));
+    }
+
+    /**
+     * @param chunks 待入库分块（顺序稳定时结果也稳定，先出现的作为规范分块）
+     * @return 去重后的分块，保持原有顺序
+     */
+    public List<LegalChunk> filter(List<LegalChunk> chunks) {
+        duplicates.clear();
+        long[][] shingles = chunks.parallelStream()
+                .map(chunk -> shingles(chunk.text()))
+                .toArray(long[][]::new);
+        long[][] signatures = Arrays.stream(shingles).parallel()
+                .map(NearDuplicateFilter::signature)
+                .toArray(long[][]::new);
+        List<List<String>> terms = chunks.parallelStream()
+                .map(chunk -> legalTerms(chunk.text()))
+                .toList();
+
+        List<Map<Long, List<Integer>>> buckets = new ArrayList<>(BANDS);
+        for (int b = 0; b < BANDS; b++) {
+            buckets.add(new HashMap<>());
+        }
+
+        List<LegalChunk> kept = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            LawDomain domain = chunks.get(i).domain();
+            long[] signature = signatures[i];
+            Set<Integer> candidates = new HashSet<>();
+            for (int b = 0; b < BANDS; b++) {
+                candidates.addAll(buckets.get(b).getOrDefault(bandKey(domain, signature, b), Collections.emptyList()));
+            }
+
+            int best = -1;
+            double bestSimilarity = 0;
+            for (int candidate : candidates) {
+                if (!sameProvision(chunks.get(i), terms.get(i), chunks.get(candidate), terms.get(candidate))) {
+                    continue;
+                }
+                double similarity = jaccard(shingles[i], shingles[candidate]);
+                if (similarity > bestSimilarity) {
+                    best = candidate;
+                    bestSimilarity = similarity;
+                }
+            }
+
+            if (best >= 0 && bestSimilarity >= threshold) {
+                duplicates.add(new Duplicate(chunks.get(i), chunks.get(best), bestSimilarity));
+                continue;
+            }
+            // 只有规范分块进入 LSH 桶，重复分块总是直接关联到规范分块
+            for (int b = 0; b < BANDS; b++) {
+                buckets.get(b).computeIfAbsent(bandKey(domain, signature, b), k -> new ArrayList<>()).add(i);
+            }
+            kept.add(chunks.get(i));
+        }
+
+        logger.info("🧹 近似去重：{} → {} 条，过滤 {} 条（{}%），阈值 {}", chunks.size(), kept.size(),
+                duplicates.size(), chunks.isEmpty() ? 0 : duplicates.size() * 100 / chunks.size(), threshold);
+        return kept;
+    }
+
+    /**
+     * 最近一次 filter 过滤掉的分块
+     */
+    public List<Duplicate> duplicates() {
+        return List.copyOf(duplicates);
+    }
+
+    /**
+     * 最近一次 filter 中每个规范分块合并掉的重复分块出处（按实例区分，同样内容的两个分块各算各的），
+     * 入库时写到规范分块所在行，检索命中时能给出全部出处
+     */
+    public Map<LegalChunk, List<String>> mergedSources() {
+        Map<LegalChunk, List<String>> merged = new IdentityHashMap<>();
+        for (Duplicate d : duplicates) {
+            merged.computeIfAbsent(d.canonical(), k -> new ArrayList<>()).add(d.duplicate().source());
+        }
+        return merged;
+    }
+
+    /**
+     * 把重复分块与规范分块的对应关系写成 JSONL 报告
+     */
+    public void writeReport(Path file) throws Exception {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Duplicate d : duplicates) {
+                writer.write(new JSONObject()
+                        .put("law", d.duplicate().law())
+                        .put("article", d.duplicate().article())
+                        .put("canonicalLaw", d.canonical().law())
+                        .put("canonicalArticle", d.canonical().article())
+                        .put("similarity", Math.round(d.similarity() * 1000) / 1000.0)
+                        .put("text", preview(d.duplicate().text()))
+                        .toString());
+                writer.newLine();
+            }
+        }
+        logger.info("📝 去重报告已写入: {}（{} 条）", file.toAbsolutePath(), duplicates.size());
+    }
+
+    /**
+     * NFKC 归一化（全角/半角标点视为相同）并去掉空白后按字符切 shingle，
+     * 文本短于 shingle 长度时整体作为一个 shingle；返回排序去重后的 shingle 哈希
+     */
+    long[] shingles(String text) {
+        int[] chars = Normalizer.normalize(text, Normalizer.Form.NFKC).codePoints().filter(cp -> !Character.isWhitespace(cp)).toArray();
+        int n = Math.max(1, chars.length - shingleSize + 1);
+        long[] result = new long[n];
+        for (int start = 0; start < n; start++) {
+            long h = 0xCBF29CE484222325L;
+            for (int j = start; j < Math.min(chars.length, start + shingleSize); j++) {
+                h = (h ^ chars[j]) * 0x100000001B3L;
+            }
+            result[start] = h;
+        }
+        return LongStream.of(result).sorted().distinct().toArray();
+    }
+
+    /**
+     * 只有同一领域、同一条款编号、法律要素序列完全一致的分块才可能是重复
+     */
+    private static boolean sameProvision(LegalChunk a, List<String> aTerms, LegalChunk b, List<String> bTerms) {
+        return a.domain() == b.domain() && a.article().equals(b.article()) && aTerms.equals(bTerms);
+    }
+
+    /**
+     * 按出现顺序提取法律要素（NFKC 归一化后，全角数字与半角视为相同）
+     */
+    static List<String> legalTerms(String text) {
+        Matcher matcher = LEGAL_TERM.matcher(Normalizer.normalize(text, Normalizer.Form.NFKC));
+        List<String> terms = new ArrayList<>();
+        while (matcher.find()) {
+            terms.add(matcher.group());
+        }
+        return terms;
+    }
+
+    private static long[] signature(long[] shingles) {
+        long[] signature = new long[NUM_HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int i = 0; i < NUM_HASHES; i++) {
+                long h = mix(shingle ^ SEEDS[i]);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * 桶键包含领域，不同领域的分块不会成为候选
+     */
+    private static long bandKey(LawDomain domain, long[] signature, int band) {
+        long key = mix(band + 31L * domain.ordinal());
+        for (int r = 0; r < ROWS; r++) {
+            key = mix(key ^ signature[band * ROWS + r]);
+        }
+        return key;
+    }
+
+    /**
+     * 两个已排序去重的 shingle 集合的 Jaccard 相似度（归并计数交集）
+     */
+    static double jaccard(long[] a, long[] b) {
+        if (a.length == 0 && b.length == 0) {
+            return 1;
+        }
+        int i = 0;
+        int j = 0;
+        int intersection = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                intersection++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) intersection / (a.length + b.length - intersection);
+    }
+
+    /**
+     * splitmix64 混合函数
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static String preview(String text) {
+        return text.length() > 60 ? text.substring(0, 60) + "..." : text;
+    }
+}
@@ -0,0 +1,163 @@
+package org.bigdata.rag_legal.utils;
+
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @describe: 带优先级等待队列的并发限制器：最多 maxConcurrent 个任务同时执行，
+ * 其余按优先级排队（数值越小越优先，同优先级先到先得）；队列满时挤掉优先级最低的等待者，
+ * 挤不掉则立即拒绝；等待超时同样拒绝
+ * @Date 2025/5/18
+ */
+public class PriorityLimiter {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeSet<Waiter> waiters = new TreeSet<>(
+            Comparator.comparingInt((Waiter w) -> w.priority).thenComparingLong(w -> w.seq));
+    private int inFlight;
+    private long seq;
+
+    /** 单个任务平均耗时（指数移动平均），用于估算 Retry-After */
+    private volatile double avgServiceMillis = 1000;
+
+    /**
+     * @param name          阶段名称（用于提示信息）
+     * @param maxConcurrent 最大并发数
+     * @param maxQueue      最大排队数
+     * @param maxWaitMillis 最长排队时间
+     */
+    public PriorityLimiter(String name, int maxConcurrent, int maxQueue, long maxWaitMillis) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    private static final class Waiter {
+        final int priority;
+        final long seq;
+        final Condition condition;
+        boolean granted;
+        boolean evicted;
+
+        Waiter(int priority, long seq, Condition condition) {
+            this.priority = priority;
+            this.seq = seq;
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * 在并发许可内执行任务
+     */
+    public <T> T call(int priority, Callable<T> task) throws Exception {
+        acquire(priority);
+        long start = System.currentTimeMillis();
+        try {
+            return task.call();
+        } finally {
+            avgServiceMillis = avgServiceMillis * 0.8 + (System.currentTimeMillis() - start) * 0.2;
+            release();
+        }
+    }
+
+    /**
+     * 获取执行许可，拒绝时抛出 AdmissionRejectedException
+     */
+    public void acquire(int priority) throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < maxConcurrent && waiters.isEmpty()) {
+                inFlight++;
+                return;
+            }
+            if (waiters.size() >= maxQueue) {
+                Waiter lowest = waiters.isEmpty() ? null : waiters.last();
+                if (lowest == null || lowest.priority <= priority) {
+                    throw reject("排队已满");
+                }
+                // 挤掉优先级更低的等待者
+                waiters.remove(lowest);
+                lowest.evicted = true;
+                lowest.condition.signal();
+            }
+
+            Waiter waiter = new Waiter(priority, seq++, lock.newCondition());
+            waiters.add(waiter);
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            try {
+                while (!waiter.granted && !waiter.evicted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    handOff();
+                } else {
+                    waiters.remove(waiter);
+                }
+                throw e;
+            }
+            if (waiter.granted) {
+                return;
+            }
+            waiters.remove(waiter);
+            throw reject(waiter.evicted ? "被更高优先级请求挤出队列" : "排队超时");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放许可；有等待者时直接交给优先级最高的等待者
+     */
+    public void release() {
+        lock.lock();
+        try {
+            handOff();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void handOff() {
+        Waiter next = waiters.pollFirst();
+        if (next != null) {
+            next.granted = true;
+            next.condition.signal();
+        } else {
+            inFlight--;
+        }
+    }
+
+    private AdmissionRejectedException reject(String reason) {
+        long retryAfter = (long) Math.ceil(avgServiceMillis * (waiters.size() + 1) / maxConcurrent / 1000d);
+        return new AdmissionRejectedException(name + " 繁忙（" + reason + "）", retryAfter);
+    }
+}
@@ -0,0 +1,315 @@
+package org.bigdata.rag_legal.utils;
+
+import org.bigdata.rag_legal.service.QueryRouter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * @describe: 检索质量与延迟离线评估：用黄金问题集（问题 + 期望条文 ID）在本地 Milvus 上
+ * 按 分块长度 × 存储方式（对应索引类型）× topK 逐一建库检索，输出 recall@k、MRR、检索延迟分位数和索引内存估算；
+ * 建库走正式入库流程（近似去重、领域分区、MilvusBulkLoader），检索分别按 QueryRouter 路由后的分区（routed，
+ * 与线上一致）和全部分区（all）各测一遍
+ * 用法：RetrievalEvaluation <文档目录> <黄金问题集.jsonl>
+ * 问题集每行一个 JSON：{"question": "...", "articles": ["中华人民共和国刑法#第二百六十四条"]}，条文 ID 也可只写 "第二百六十四条"
+ * @Date 2025/5/20
+ */
+public class RetrievalEvaluation {
+
+    private record GoldenQuestion(String question, Set<String> articles) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("用法: RetrievalEvaluation <文档目录> <黄金问题集.jsonl>");
+            return;
+        }
+        String collection = System.getProperty("rag.eval.collection", "law_articles_eval");
+        List<Integer> chunkLengths = intList(System.getProperty("rag.eval.chunk-lengths", "512"));
+        List<VectorStorage> storages = Arrays.stream(System.getProperty("rag.eval.storages", "FLOAT,BINARY").split(","))
+                .map(s -> VectorStorage.valueOf(s.trim().toUpperCase())).collect(Collectors.toList());
+        List<Integer> topKs = intList(System.getProperty("rag.eval.top-k", "3,5,10"));
+        int repeats = Math.max(1, Integer.getInteger("rag.eval.repeats", 3));
+        int rerankFactor = Integer.getInteger("rag.search.rerank-factor", 4);
+        int workers = Integer.getInteger("rag.ingest.workers", Runtime.getRuntime().availableProcessors());
+        Path output = Path.of(System.getProperty("rag.eval.output", "retrieval-eval.json"));
+        Path cacheFile = Path.of(System.getProperty("rag.eval.embedding-cache", "retrieval-eval-embeddings.jsonl"));
+        int dim = EmbeddingClient.getDimensions();
+        boolean dedup = Boolean.parseBoolean(System.getProperty("rag.ingest.dedup", "true"));
+        QueryRouter router = QueryRouter.fromSystemProperties();
+
+        List<GoldenQuestion> golden = readGolden(Path.of(args[1]));
+        EmbeddingCache cache = new EmbeddingCache(cacheFile, dim);
+        List<List<Float>> queryVectors = cache.embed(golden.stream().map(GoldenQuestion::question).toList());
+        System.out.printf("📊 黄金问题 %d 条，维度 %d，分块长度 %s，存储 %s，topK %s%n",
+                golden.size(), dim, chunkLengths, storages, topKs);
+
+        JSONArray report = new JSONArray();
+        System.out.printf("%-7s %-8s %-7s %-5s %-10s %-8s %-9s %-9s %-9s %-12s%n",
+                "chunk", "storage", "routing", "k", "recall@k", "MRR", "p50(ms)", "p95(ms)", "p99(ms)", "index(MB)");
+        try {
+            for (int chunkLength : chunkLengths) {
+                List<LegalChunk> chunks = new LegalDocumentReader(workers, chunkLength).read(args[0]);
+                // 检索结果只返回文本，按文本反查所属条文（含去重时被过滤的分块）
+                Map<String, Set<String>> articlesByText = new HashMap<>();
+                for (LegalChunk chunk : chunks) {
+                    articlesByText.computeIfAbsent(chunk.text(), t -> new HashSet<>())
+                            .add(chunk.law() + "#" + chunk.article());
+                }
+                Map<LegalChunk, List<String>> mergedSources = Map.of();
+                if (dedup) {
+                    NearDuplicateFilter filter = NearDuplicateFilter.fromSystemProperties();
+                    chunks = filter.filter(chunks);
+                    mergedSources = filter.mergedSources();
+                }
+                long textBytes = chunks.stream().mapToLong(c -> c.text().getBytes(StandardCharsets.UTF_8).length).sum();
+
+                for (VectorStorage storage : storages) {
+                    MilvusService.configureStorage(storage, rerankFactor);
+                    buildIndex(collection, dim, chunks, mergedSources, cache);
+                    router.refresh(collection);
+                    long indexBytes = storage.bytesPerVector(dim) * chunks.size();
+
+                    for (boolean routed : new boolean[]{true, false}) {
+                        QueryRouter routing = routed ? router : null;
+                        // 预热一轮，不计入延迟
+                        for (int q = 0; q < golden.size(); q++) {
+                            search(collection, routing, golden.get(q).question(), queryVectors.get(q), topKs.get(0));
+                        }
+                        for (int topK : topKs) {
+                            JSONObject result = evaluate(collection, routing, golden, queryVectors, articlesByText, topK, repeats)
+                                    .put("chunkLength", chunkLength)
+                                    .put("storage", storage.name())
+                                    .put("routing", routed ? "routed" : "all")
+                                    .put("chunks", chunks.size())
+                                    .put("indexBytes", indexBytes)
+                                    .put("textBytes", textBytes);
+                            System.out.printf("%-7d %-8s %-7s %-5d %-10.4f %-8.4f %-9.2f %-9.2f %-9.2f %-12.2f%n",
+                                    chunkLength, storage, routed ? "routed" : "all", topK, result.getDouble("recallAtK"),
+                                    result.getDouble("mrr"), result.getDouble("p50Ms"), result.getDouble("p95Ms"),
+                                    result.getDouble("p99Ms"), indexBytes / 1024d / 1024d);
+                            report.put(result);
+                        }
+                    }
+                }
+            }
+        } finally {
+            cache.close();
+            MilvusService.close();
+        }
+
+        Files.writeString(output, new JSONObject()
+                .put("questions", golden.size())
+                .put("dimensions", dim)
+                .put("rerankFactor", rerankFactor)
+                .put("repeats", repeats)
+                .put("results", report)
+                .toString(2), StandardCharsets.UTF_8);
+        System.out.println("✅ 评估报告已写入: " + output.toAbsolutePath());
+    }
+
+    /**
+     * 重建评估集合：与正式入库相同的建表、领域分区、索引和批量入库流程（向量取自缓存）
+     */
+    private static void buildIndex(String collection, int dim, List<LegalChunk> chunks,
+                                   Map<LegalChunk, List<String>> mergedSources, EmbeddingCache cache) throws Exception {
+        MilvusBulkLoader loader = MilvusBulkLoader.fromSystemProperties(collection, dim)
+                .embedder(cache::embed)
+                .mergedSources(mergedSources);
+        // 每次都重建集合，不能续传上一次评估留下的进度
+        Files.deleteIfExists(loader.journalFile());
+        loader.open(chunks);
+        MilvusService.createCollectionIfNotExists(collection, dim);
+        MilvusService.createPartitions(collection, Arrays.stream(LawDomain.values())
+                .map(LawDomain::partition)
+                .collect(Collectors.toList()));
+        MilvusService.createBasicIndex(collection, "embedding");
+        loader.run();
+    }
+
+    /**
+     * 与线上检索一致：有 router 时先路由到领域分区再检索，否则检索全部分区
+     */
+    private static List<VectorSearchResult> search(String collection, QueryRouter router, String question,
+                                                   List<Float> vector, int topK) {
+        List<String> partitions = router != null ? router.route(collection, question, vector) : null;
+        return MilvusService.search(collection, partitions, vector, topK);
+    }
+
+    private static JSONObject evaluate(String collection, QueryRouter router, List<GoldenQuestion> golden,
+                                       List<List<Float>> queryVectors,
+                                       Map<String, Set<String>> articlesByText, int topK, int repeats) {
+        List<Double> latencies = new ArrayList<>(golden.size() * repeats);
+        double recallSum = 0;
+        double reciprocalRankSum = 0;
+        int hits = 0;
+        for (int q = 0; q < golden.size(); q++) {
+            List<VectorSearchResult> results = null;
+            for (int r = 0; r < repeats; r++) {
+                long start = System.nanoTime();
+                results = search(collection, router, golden.get(q).question(), queryVectors.get(q), topK);
+                latencies.add((System.nanoTime() - start) / 1_000_000d);
+            }
+
+            Set<String> expected = golden.get(q).articles();
+            Set<String> found = new HashSet<>();
+            int firstRank = 0;
+            for (int rank = 1; rank <= results.size(); rank++) {
+                Set<String> articles = articlesByText.getOrDefault(results.get(rank - 1).text(), Collections.emptySet());
+                for (String id : expected) {
+                    if (articles.stream().anyMatch(article -> matches(id, article))) {
+                        found.add(id);
+                        if (firstRank == 0) {
+                            firstRank = rank;
+                        }
+                    }
+                }
+            }
+            recallSum += (double) found.size() / expected.size();
+            if (firstRank > 0) {
+                reciprocalRankSum += 1d / firstRank;
+                hits++;
+            }
+        }
+
+        Collections.sort(latencies);
+        return new JSONObject()
+                .put("k", topK)
+                .put("recallAtK", recallSum / golden.size())
+                .put("hitRateAtK", (double) hits / golden.size())
+                .put("mrr", reciprocalRankSum / golden.size())
+                .put("meanMs", latencies.stream().mapToDouble(Double::doubleValue).average().orElse(0))
+                .put("p50Ms", percentile(latencies, 50))
+                .put("p95Ms", percentile(latencies, 95))
+                .put("p99Ms", percentile(latencies, 99));
+    }
+
+    /**
+     * 期望 ID 带法律名称（"法律#条"）时精确匹配，否则只比较条号
+     */
+    private static boolean matches(String expected, String article) {
+        return expected.contains("#") ? expected.equals(article) : article.endsWith("#" + expected);
+    }
+
+    private static double percentile(List<Double> sorted, int p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100d * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static List<GoldenQuestion> readGolden(Path file) throws Exception {
+        List<GoldenQuestion> golden = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JSONObject json = new JSONObject(line);
+            Set<String> articles = new LinkedHashSet<>();
+            JSONArray array = json.getJSONArray("articles");
+            for (int i = 0; i < array.length(); i++) {
+                articles.add(array.getString(i).trim());
+            }
+            if (articles.isEmpty()) {
+                throw new IllegalArgumentException("问题缺少期望条文: " + line);
+            }
+            golden.add(new GoldenQuestion(json.getString("question"), articles));
+        }
+        if (golden.isEmpty()) {
+            throw new IllegalArgumentException("黄金问题集为空: " + file);
+        }
+        return golden;
+    }
+
+    private static List<Integer> intList(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).map(Integer::parseInt).collect(Collectors.toList());
+    }
+
+    /**
+     * 向量缓存：同一后端、维度和文本只调用一次向量化接口，结果追加到本地文件供下次评估复用；
+     * 不同后端的同维度向量不可混用（dashscope 与 local 都可能是 512 维）
+     */
+    private static final class EmbeddingCache implements AutoCloseable {
+
+        private final String provider;
+        private final int dim;
+        private final Map<String, List<Float>> vectors = new HashMap<>();
+        private final BufferedWriter writer;
+
+        EmbeddingCache(Path file, int dim) throws Exception {
+            this.provider = EmbeddingClient.provider().name();
+            this.dim = dim;
+            if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JSONObject json = new JSONObject(line);
+                    // 旧格式缓存没有 provider 字段，无法确认来源，一律不用
+                    if (!provider.equals(json.optString("provider")) || json.getInt("dim") != dim) {
+                        continue;
+                    }
+                    JSONArray array = json.getJSONArray("vector");
+                    List<Float> vector = new ArrayList<>(array.length());
+                    for (int i = 0; i < array.length(); i++) {
+                        vector.add(array.getFloat(i));
+                    }
+                    vectors.put(json.getString("text"), vector);
+                }
+                System.out.println("♻️ 已加载向量缓存: " + vectors.size() + " 条");
+            }
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        /**
+         * 批量入库会并行调用：只在读写缓存时加锁，向量化请求在锁外执行
+         */
+        List<List<Float>> embed(List<String> texts) throws Exception {
+            List<String> missing;
+            synchronized (this) {
+                missing = texts.stream().filter(t -> !vectors.containsKey(t)).distinct().toList();
+            }
+            if (!missing.isEmpty()) {
+                List<List<Float>> embedded = EmbeddingClient.embedInBatches(missing, dim);
+                synchronized (this) {
+                    for (int i = 0; i < missing.size(); i++) {
+                        vectors.put(missing.get(i), embedded.get(i));
+                        writer.write(new JSONObject()
+                                .put("provider", provider)
+                                .put("dim", dim)
+                                .put("text", missing.get(i))
+                                .put("vector", new JSONArray(embedded.get(i)))
+                                .toString());
+                        writer.newLine();
+                    }
+                    writer.flush();
+                }
+            }
+            synchronized (this) {
+                return texts.stream().map(vectors::get).collect(Collectors.toList());
+            }
+        }
+
+        @Override
+        public void close() throws Exception {
+            writer.close();
+        }
+    }
+}
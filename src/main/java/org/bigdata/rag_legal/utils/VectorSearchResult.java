@@ -1,8 +1,10 @@
 package org.bigdata.rag_legal.utils;
 
+import java.util.List;
+
 /**
- * @describe: 向量搜索结果封装类
+ * @describe: 向量搜索结果封装类；sources 为命中分块及去重时合并到它的分块的出处（旧版本集合为空）
  * @Author JasonZhang
  * @Date 2025/4/14
 **/
-public record VectorSearchResult(long id, float score, String text) {}
+public record VectorSearchResult(long id, float score, String text, List<String> sources) {}
@@ -0,0 +1,28 @@
+package org.bigdata.rag_legal.utils;
+
+/**
+ * @describe: 向量在 Milvus 中的存储方式
+ * @Date 2025/5/12
+ */
+public enum VectorStorage {
+
+    /** float32 原始向量 + FLAT 索引，每维 4 字节 */
+    FLOAT,
+
+    /**
+     * 只存二值向量（符号位）+ BIN_FLAT 汉明距离，每维 1 bit；
+     * 召回候选后直接用读回的符号位与 float 查询向量计算非对称距离重排，不另存高精度向量
+     */
+    BINARY;
+
+    /**
+     * @param dim 向量维度
+     *            每条向量存储并加载到 Milvus 内存中的字节数（估算）；重排读回的就是索引中的同一份向量，没有额外字段
+     */
+    public long bytesPerVector(int dim) {
+        return switch (this) {
+            case FLOAT -> (long) dim * Float.BYTES;
+            case BINARY -> dim / 8;
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package org.bigdata.rag_legal.utils.embedding;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @describe: DashScope text-embedding-v3 远程向量化，每次请求最多 10 条
+ * @Date 2025/5/21
+ */
+public class DashScopeEmbeddingProvider implements EmbeddingProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashScopeEmbeddingProvider.class);
+
+    private static final String API_URL = "https://dashscope.aliyuncs.com/compatible-mode/v1/embeddings";
+    private static final String API_KEY = System.getenv("DASHSCOPE_API_KEY");
+
+    /** text-embedding-v3 支持的输出维度 */
+    public static final Set<Integer> SUPPORTED_DIMENSIONS = Set.of(1024, 768, 512, 256, 128, 64);
+
+    private static final int BATCH_SIZE = 10;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Override
+    public String name() {
+        return "dashscope";
+    }
+
+    @Override
+    public Set<Integer> supportedDimensions() {
+        return SUPPORTED_DIMENSIONS;
+    }
+
+    @Override
+    public int defaultDimensions() {
+        return 1024;
+    }
+
+    @Override
+    public List<List<Float>> embed(List<String> texts, int dim) throws Exception {
+        logger.info("📨 准备向量化文本，共计: {} 条", texts.size());
+        List<List<Float>> allEmbeddings = new ArrayList<>();
+
+        // 拆分批次并循环处理
+        for (int i = 0; i < texts.size(); i += BATCH_SIZE) {
+            int end = Math.min(i + BATCH_SIZE, texts.size());
+            List<String> batchTexts = texts.subList(i, end);
+            logger.info("处理批次 {}: 处理 {} 条文本", (i / BATCH_SIZE + 1), batchTexts.size());
+
+            allEmbeddings.addAll(embedBatch(batchTexts, dim));
+        }
+
+        logger.info("✅ 向量化处理完成，共生成 {} 个向量", allEmbeddings.size());
+        return allEmbeddings;
+    }
+
+    // 单次向量化处理（限制10条以内）
+    private List<List<Float>> embedBatch(List<String> batchTexts, int dim) throws Exception {
+        if (batchTexts.size() > BATCH_SIZE) {
+            throw new IllegalArgumentException("批次大小不能超过10，当前传入: " + batchTexts.size());
+        }
+        if (API_KEY == null || API_KEY.isEmpty()) {
+            throw new IllegalStateException("❌ 未检测到 DASHSCOPE_API_KEY，请设置环境变量");
+        }
+
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("model", "text-embedding-v3");
+        requestBody.put("input", new JSONArray(batchTexts));
+        requestBody.put("dimensions", dim);
+        requestBody.put("encoding_format", "float");
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(API_URL))
+                .header("Authorization", "Bearer " + API_KEY)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString(), StandardCharsets.UTF_8))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() != 200) {
+            logger.error("❌ 向量化批次请求失败，状态码: {}, 响应体: {}",
+                    response.statusCode(), response.body());
+            throw new RuntimeException("向量批次请求失败: " + response.statusCode());
+        }
+
+        String responseBody = response.body();
+        logger.info("✅ 批次请求成功，响应预览: {}",
+                responseBody.length() > 60 ? responseBody.substring(0, 60) + "..." : responseBody);
+
+        return extractEmbeddings(responseBody);
+    }
+
+    /**
+     * 从响应中提取向量
+     */
+    private static List<List<Float>> extractEmbeddings(String json) {
+        List<List<Float>> vectors = new ArrayList<>();
+        JSONArray dataArray = new JSONObject(json).getJSONArray("data");
+
+        for (int i = 0; i < dataArray.length(); i++) {
+            JSONArray vectorArray = dataArray.getJSONObject(i).getJSONArray("embedding");
+            List<Float> vector = new ArrayList<>(vectorArray.length());
+            for (int j = 0; j < vectorArray.length(); j++) {
+                vector.add((float) vectorArray.getDouble(j));
+            }
+            vectors.add(vector);
+        }
+
+        logger.info("📦 提取完成，共计向量条数: {}", vectors.size());
+        return vectors;
+    }
+}
@@ -0,0 +1,37 @@
+package org.bigdata.rag_legal.utils.embedding;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @describe: 向量化后端，EmbeddingClient 的静态方法统一委托给当前后端
+ * @Date 2025/5/21
+ */
+public interface EmbeddingProvider extends AutoCloseable {
+
+    /**
+     * 后端名称（用于日志）
+     */
+    String name();
+
+    /**
+     * 支持的输出维度
+     */
+    Set<Integer> supportedDimensions();
+
+    /**
+     * 未显式配置 rag.embedding.dimensions 时使用的维度
+     */
+    int defaultDimensions();
+
+    /**
+     * @param texts 待向量化文本，条数不限，由后端自行分批
+     * @param dim   输出维度，必须在 supportedDimensions 中
+     *              批量向量化，结果顺序与 texts 一致
+     */
+    List<List<Float>> embed(List<String> texts, int dim) throws Exception;
+
+    @Override
+    default void close() {
+    }
+}
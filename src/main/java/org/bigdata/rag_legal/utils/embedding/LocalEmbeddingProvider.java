@@ -0,0 +1,313 @@
+package org.bigdata.rag_legal.utils.embedding;
+
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * @describe: 本地 CPU 向量化（ONNX Runtime + bge-small-zh 类 BERT 模型），无需网络：
+ * 调用线程内分词，调度线程把并发请求合并成动态批次，交给与 CPU 核数相同的推理线程执行，
+ * 取 [CLS] 向量并做 L2 归一化
+ * @Date 2025/5/21
+ */
+public class LocalEmbeddingProvider implements EmbeddingProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalEmbeddingProvider.class);
+
+    /** 有该输出时优先使用（部分导出模型同时输出 pooler_output） */
+    private static final String HIDDEN_STATE = "last_hidden_state";
+
+    private final OrtEnvironment env = OrtEnvironment.getEnvironment();
+    private final OrtSession session;
+    private final WordPieceTokenizer tokenizer;
+    private final boolean needsTokenTypes;
+    private final int hiddenSize;
+
+    private final int maxLength;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final long timeoutMs;
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService workers;
+    /** 空闲推理线程数；调度线程拿到空闲线程后才组下一个批次，负载高时批次自然变大 */
+    private final Semaphore idleWorkers;
+    private final int poolSize;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private record Pending(long[] ids, CompletableFuture<float[]> result) {
+    }
+
+    /**
+     * @param modelFile  ONNX 模型文件（输出 last_hidden_state 或已池化的句向量）
+     * @param vocabFile  WordPiece 词表 vocab.txt
+     * @param maxLength  最大 token 数（含 [CLS]/[SEP]）
+     * @param threads    推理线程数
+     * @param maxBatch   单个批次最多合并的文本数
+     * @param maxWaitMs  推理线程全忙时，为凑批次最多等待的毫秒数
+     * @param timeoutMs  单次 embed 调用等待结果的最长毫秒数
+     */
+    public LocalEmbeddingProvider(Path modelFile, Path vocabFile, int maxLength, int threads,
+                                  int maxBatch, long maxWaitMs, long timeoutMs) throws Exception {
+        if (!Files.exists(modelFile) || !Files.exists(vocabFile)) {
+            throw new IllegalArgumentException("❌ 本地向量模型不存在: " + modelFile + " / " + vocabFile);
+        }
+        this.maxLength = maxLength;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.timeoutMs = timeoutMs;
+        this.tokenizer = WordPieceTokenizer.fromVocabFile(vocabFile, true);
+
+        // 并行度由推理线程池提供，单次推理只用一个线程，避免线程互相争抢
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+        options.setIntraOpNumThreads(1);
+        options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+        this.session = env.createSession(modelFile.toString(), options);
+        this.needsTokenTypes = session.getInputNames().contains("token_type_ids");
+        this.hiddenSize = detectHiddenSize();
+
+        this.poolSize = Math.max(1, threads);
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread thread = new Thread(r, "embedding-worker-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.idleWorkers = new Semaphore(poolSize);
+        this.dispatcher = new Thread(this::dispatch, "embedding-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+        logger.info("✅ 本地向量模型已加载: {}，维度 {}，推理线程 {}，最大批次 {}",
+                modelFile, hiddenSize, poolSize, this.maxBatch);
+    }
+
+    /**
+     * 按系统属性创建：rag.embedding.local.model / vocab / max-length / threads / max-batch / max-wait-ms / timeout-ms
+     */
+    public static LocalEmbeddingProvider fromSystemProperties() throws Exception {
+        Path model = Path.of(System.getProperty("rag.embedding.local.model", "models/bge-small-zh/model.onnx"));
+        String vocab = System.getProperty("rag.embedding.local.vocab", "");
+        return new LocalEmbeddingProvider(
+                model,
+                vocab.isEmpty() ? model.resolveSibling("vocab.txt") : Path.of(vocab),
+                Integer.getInteger("rag.embedding.local.max-length", 512),
+                Integer.getInteger("rag.embedding.local.threads", Runtime.getRuntime().availableProcessors()),
+                Integer.getInteger("rag.embedding.local.max-batch", 32),
+                Long.getLong("rag.embedding.local.max-wait-ms", 2),
+                Long.getLong("rag.embedding.local.timeout-ms", 60000));
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public Set<Integer> supportedDimensions() {
+        return Set.of(hiddenSize);
+    }
+
+    @Override
+    public int defaultDimensions() {
+        return hiddenSize;
+    }
+
+    @Override
+    public List<List<Float>> embed(List<String> texts, int dim) throws Exception {
+        if (dim != hiddenSize) {
+            throw new IllegalArgumentException("本地模型输出维度为 " + hiddenSize + "，不支持: " + dim);
+        }
+        if (!running) {
+            throw new IllegalStateException("本地向量模型已关闭");
+        }
+        List<long[]> encoded = texts.stream().map(text -> tokenizer.encode(text, maxLength)).toList();
+        // 按长度顺序入队，相邻请求长度接近，同一批次的填充更少
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            futures.add(null);
+        }
+        IntStream.range(0, texts.size()).boxed()
+                .sorted(Comparator.comparingInt(i -> encoded.get(i).length))
+                .forEach(i -> {
+                    CompletableFuture<float[]> future = new CompletableFuture<>();
+                    futures.set(i, future);
+                    queue.add(new Pending(encoded.get(i), future));
+                });
+        // close() 可能在上面的检查之后、入队之前已经清空了队列，这些请求不会再被处理
+        if (!running) {
+            failAll(futures, new IllegalStateException("本地向量模型已关闭"));
+        }
+
+        List<List<Float>> vectors = new ArrayList<>(texts.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (CompletableFuture<float[]> future : futures) {
+            float[] vector;
+            try {
+                vector = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            } catch (TimeoutException e) {
+                // 仍在队列中的请求被推理线程取到时结果会被丢弃
+                failAll(futures, e);
+                throw new TimeoutException("本地向量化超时（" + timeoutMs + " ms），" + texts.size() + " 条文本");
+            }
+            List<Float> list = new ArrayList<>(vector.length);
+            for (float v : vector) {
+                list.add(v);
+            }
+            vectors.add(list);
+        }
+        return vectors;
+    }
+
+    private static void failAll(List<CompletableFuture<float[]>> futures, Exception cause) {
+        futures.forEach(f -> f.completeExceptionally(cause));
+    }
+
+    /**
+     * 调度线程：等到有空闲推理线程后取出排队请求组成批次；
+     * 推理线程繁忙期间到达的请求自然合并；其他线程全部繁忙时再最多等待 maxWait 凑满批次
+     */
+    private void dispatch() {
+        while (running) {
+            try {
+                idleWorkers.acquire();
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    idleWorkers.release();
+                    continue;
+                }
+                List<Pending> batch = new ArrayList<>(maxBatch);
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                // 只有在其他推理线程都在忙时才等待凑批；空闲时立即推理，单条查询不增加延迟
+                if (idleWorkers.availablePermits() == 0 && poolSize > 1) {
+                    long deadline = System.nanoTime() + maxWaitNanos;
+                    while (batch.size() < maxBatch) {
+                        Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatch - batch.size());
+                    }
+                }
+                workers.execute(() -> {
+                    try {
+                        infer(batch);
+                    } finally {
+                        idleWorkers.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void infer(List<Pending> batch) {
+        int seqLength = batch.stream().mapToInt(p -> p.ids().length).max().orElse(0);
+        long[][] inputIds = new long[batch.size()][seqLength];
+        long[][] attentionMask = new long[batch.size()][seqLength];
+        for (int b = 0; b < batch.size(); b++) {
+            long[] ids = batch.get(b).ids();
+            System.arraycopy(ids, 0, inputIds[b], 0, ids.length);
+            for (int t = 0; t < ids.length; t++) {
+                attentionMask[b][t] = 1;
+            }
+        }
+
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            inputs.put("input_ids", OnnxTensor.createTensor(env, inputIds));
+            inputs.put("attention_mask", OnnxTensor.createTensor(env, attentionMask));
+            if (needsTokenTypes) {
+                inputs.put("token_type_ids", OnnxTensor.createTensor(env, new long[batch.size()][seqLength]));
+            }
+            try (OrtSession.Result result = session.run(inputs)) {
+                Object output = result.get(HIDDEN_STATE).orElse(result.get(0)).getValue();
+                for (int b = 0; b < batch.size(); b++) {
+                    // 三维输出取 [CLS] 位置的隐藏状态；二维输出已是句向量
+                    float[] vector = output instanceof float[][][] hidden ? hidden[b][0] : ((float[][]) output)[b];
+                    batch.get(b).result().complete(normalize(vector));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("❌ 本地向量推理失败，批次大小 {}", batch.size(), e);
+            batch.forEach(p -> p.result().completeExceptionally(e));
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] result = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = norm == 0 ? 0 : (float) (vector[i] / norm);
+        }
+        return result;
+    }
+
+    /**
+     * 从模型输出形状读取向量维度，形状未声明时用一次推理探测
+     */
+    private int detectHiddenSize() throws Exception {
+        Map<String, NodeInfo> outputs = session.getOutputInfo();
+        NodeInfo output = outputs.getOrDefault(HIDDEN_STATE, outputs.values().iterator().next());
+        if (output.getInfo() instanceof TensorInfo info) {
+            long[] shape = info.getShape();
+            long last = shape[shape.length - 1];
+            if (last > 0) {
+                return (int) last;
+            }
+        }
+        Pending probe = new Pending(tokenizer.encode("", maxLength), new CompletableFuture<>());
+        infer(List.of(probe));
+        return probe.result().get().length;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        workers.shutdown();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+            session.close();
+        } catch (Exception e) {
+            logger.warn("⚠️ 关闭本地向量模型失败: {}", e.getMessage());
+        }
+        queue.forEach(p -> p.result().completeExceptionally(new IllegalStateException("本地向量模型已关闭")));
+        queue.clear();
+    }
+}
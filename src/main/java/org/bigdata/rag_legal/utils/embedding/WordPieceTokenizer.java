@@ -0,0 +1,210 @@
+package org.bigdata.rag_legal.utils.embedding;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * @describe: BERT WordPiece 分词器（与 HuggingFace BertTokenizer 行为一致）：
+ * 清洗控制字符、中文按字切分、小写去重音、按标点切分，再按词表最长匹配拆成子词
+ * @Date 2025/5/21
+ */
+public class WordPieceTokenizer {
+
+    private static final String CLS = "[CLS]";
+    private static final String SEP = "[SEP]";
+    private static final String UNK = "[UNK]";
+    private static final int MAX_WORD_LENGTH = 100;
+
+    private final Map<String, Integer> vocab;
+    private final boolean lowerCase;
+    private final int clsId;
+    private final int sepId;
+    private final int unkId;
+
+    /**
+     * @param vocab     词表（token → id）
+     * @param lowerCase 是否小写并去除重音（bge-small-zh 等中文模型为 true）
+     */
+    public WordPieceTokenizer(Map<String, Integer> vocab, boolean lowerCase) {
+        this.vocab = vocab;
+        this.lowerCase = lowerCase;
+        this.clsId = idOf(CLS);
+        this.sepId = idOf(SEP);
+        this.unkId = idOf(UNK);
+    }
+
+    /**
+     * 读取 vocab.txt，每行一个 token，行号即 id
+     */
+    public static WordPieceTokenizer fromVocabFile(Path vocabFile, boolean lowerCase) throws Exception {
+        Map<String, Integer> vocab = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(vocabFile, StandardCharsets.UTF_8)) {
+            String line;
+            int id = 0;
+            while ((line = reader.readLine()) != null) {
+                vocab.putIfAbsent(line.strip(), id++);
+            }
+        }
+        return new WordPieceTokenizer(vocab, lowerCase);
+    }
+
+    /**
+     * @param text      原始文本
+     * @param maxLength 含 [CLS]/[SEP] 的最大长度，超出部分截断
+     *                  编码为 [CLS] ... [SEP] 的 token id
+     */
+    public long[] encode(String text, int maxLength) {
+        List<Integer> ids = new ArrayList<>();
+        ids.add(clsId);
+        for (String word : basicTokenize(text)) {
+            wordPiece(word, ids);
+            if (ids.size() >= maxLength - 1) {
+                break;
+            }
+        }
+        int length = Math.min(ids.size(), maxLength - 1);
+        long[] result = new long[length + 1];
+        for (int i = 0; i < length; i++) {
+            result[i] = ids.get(i);
+        }
+        result[length] = sepId;
+        return result;
+    }
+
+    /**
+     * 基础切分：清洗、中文字符两侧加空格、按空白切词，再按标点拆开
+     */
+    List<String> basicTokenize(String text) {
+        StringBuilder cleaned = new StringBuilder(text.length() * 2);
+        text.codePoints().forEach(cp -> {
+            if (cp == 0 || cp == 0xFFFD || isControl(cp)) {
+                return;
+            }
+            if (Character.isWhitespace(cp) || Character.isSpaceChar(cp)) {
+                cleaned.append(' ');
+            } else if (isChinese(cp)) {
+                cleaned.append(' ').appendCodePoint(cp).append(' ');
+            } else {
+                cleaned.appendCodePoint(cp);
+            }
+        });
+
+        List<String> tokens = new ArrayList<>();
+        for (String word : cleaned.toString().trim().split(" +")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (lowerCase) {
+                word = stripAccents(word.toLowerCase(Locale.ROOT));
+            }
+            splitOnPunctuation(word, tokens);
+        }
+        return tokens;
+    }
+
+    /**
+     * 最长匹配优先拆分子词，后续子词带 ## 前缀；无法拆分时整个词记为 [UNK]
+     */
+    private void wordPiece(String word, List<Integer> ids) {
+        if (word.codePointCount(0, word.length()) > MAX_WORD_LENGTH) {
+            ids.add(unkId);
+            return;
+        }
+        List<Integer> pieces = new ArrayList<>();
+        int start = 0;
+        while (start < word.length()) {
+            int end = word.length();
+            Integer id = null;
+            while (start < end) {
+                String piece = (start > 0 ? "##" : "") + word.substring(start, end);
+                id = vocab.get(piece);
+                if (id != null) {
+                    break;
+                }
+                end = word.offsetByCodePoints(end, -1);
+            }
+            if (id == null) {
+                ids.add(unkId);
+                return;
+            }
+            pieces.add(id);
+            start = end;
+        }
+        ids.addAll(pieces);
+    }
+
+    private static void splitOnPunctuation(String word, List<String> tokens) {
+        StringBuilder current = new StringBuilder();
+        word.codePoints().forEach(cp -> {
+            if (isPunctuation(cp)) {
+                if (current.length() > 0) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                }
+                tokens.add(new String(Character.toChars(cp)));
+            } else {
+                current.appendCodePoint(cp);
+            }
+        });
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+    }
+
+    private static String stripAccents(String word) {
+        String normalized = Normalizer.normalize(word, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(normalized.length());
+        normalized.codePoints()
+                .filter(cp -> Character.getType(cp) != Character.NON_SPACING_MARK)
+                .forEach(sb::appendCodePoint);
+        return sb.toString();
+    }
+
+    private static boolean isControl(int cp) {
+        if (cp == '\t' || cp == '\n' || cp == '\r') {
+            return false;
+        }
+        int type = Character.getType(cp);
+        return type == Character.CONTROL || type == Character.FORMAT;
+    }
+
+    private static boolean isPunctuation(int cp) {
+        // ASCII 中的非字母数字符号一律视为标点，与 BERT 保持一致
+        if ((cp >= 33 && cp <= 47) || (cp >= 58 && cp <= 64) || (cp >= 91 && cp <= 96) || (cp >= 123 && cp <= 126)) {
+            return true;
+        }
+        return switch (Character.getType(cp)) {
+            case Character.CONNECTOR_PUNCTUATION, Character.DASH_PUNCTUATION, Character.START_PUNCTUATION,
+                    Character.END_PUNCTUATION, Character.INITIAL_QUOTE_PUNCTUATION,
+                    Character.FINAL_QUOTE_PUNCTUATION, Character.OTHER_PUNCTUATION -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isChinese(int cp) {
+        return (cp >= 0x4E00 && cp <= 0x9FFF)
+                || (cp >= 0x3400 && cp <= 0x4DBF)
+                || (cp >= 0x20000 && cp <= 0x2A6DF)
+                || (cp >= 0x2A700 && cp <= 0x2B73F)
+                || (cp >= 0x2B740 && cp <= 0x2B81F)
+                || (cp >= 0x2B820 && cp <= 0x2CEAF)
+                || (cp >= 0xF900 && cp <= 0xFAFF)
+                || (cp >= 0x2F800 && cp <= 0x2FA1F);
+    }
+
+    private int idOf(String token) {
+        Integer id = vocab.get(token);
+        if (id == null) {
+            throw new IllegalArgumentException("词表缺少特殊 token: " + token);
+        }
+        return id;
+    }
+}
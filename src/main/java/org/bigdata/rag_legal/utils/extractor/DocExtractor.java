@@ -0,0 +1,36 @@
+package org.bigdata.rag_legal.utils.extractor;
+
+import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.hwpf.usermodel.Range;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * @describe: .doc（Word 97-2003）抽取器，OLE2 格式只能整体加载，段落仍逐个输出
+ * @Date 2025/5/6
+ */
+public class DocExtractor implements DocumentExtractor {
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of("doc");
+    }
+
+    @Override
+    public void extract(Path file, Consumer<String> paragraphs) throws Exception {
+        try (InputStream in = Files.newInputStream(file);
+             HWPFDocument document = new HWPFDocument(in)) {
+            Range range = document.getRange();
+            for (int i = 0; i < range.numParagraphs(); i++) {
+                String text = Range.stripFields(range.getParagraph(i).text()).trim();
+                if (!text.isEmpty()) {
+                    paragraphs.accept(text);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.bigdata.rag_legal.utils.extractor;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * @describe: 文档文本抽取器，按段落流式输出，便于分块器边读边切
+ * @Date 2025/5/6
+ */
+public interface DocumentExtractor {
+
+    /**
+     * 支持的文件扩展名（小写，不含点）
+     */
+    Set<String> extensions();
+
+    /**
+     * @param file       待抽取的文件
+     * @param paragraphs 段落回调，每读到一个非空段落立即调用一次
+     *                   逐段落抽取文本，不在内存中保留整篇文档
+     */
+    void extract(Path file, Consumer<String> paragraphs) throws Exception;
+}
@@ -0,0 +1,101 @@
+package org.bigdata.rag_legal.utils.extractor;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
+import org.apache.poi.util.XMLHelper;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * @describe: .docx 抽取器，直接用 SAX 解析 word/document.xml，不构建 XWPFDocument DOM
+ * @Date 2025/5/6
+ */
+public class DocxExtractor implements DocumentExtractor {
+
+    private static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of("docx");
+    }
+
+    @Override
+    public void extract(Path file, Consumer<String> paragraphs) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            PackageRelationship rel = pkg.getRelationshipsByType(PackageRelationshipTypes.CORE_DOCUMENT).getRelationship(0);
+            PackagePart mainPart = pkg.getPart(rel);
+
+            XMLReader reader = XMLHelper.newXMLReader();
+            reader.setContentHandler(new ParagraphHandler(paragraphs));
+            try (InputStream in = mainPart.getInputStream()) {
+                reader.parse(new InputSource(in));
+            }
+        }
+    }
+
+    /**
+     * 只收集 w:t 中的文本，w:p 结束时回调一次；文本框等嵌套段落各自独立输出
+     */
+    private static class ParagraphHandler extends DefaultHandler {
+        private final Consumer<String> paragraphs;
+        private final Deque<StringBuilder> openParagraphs = new ArrayDeque<>();
+        private boolean inText;
+
+        ParagraphHandler(Consumer<String> paragraphs) {
+            this.paragraphs = paragraphs;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (!W_NS.equals(uri)) {
+                return;
+            }
+            switch (localName) {
+                case "p" -> openParagraphs.push(new StringBuilder());
+                case "t" -> inText = true;
+                case "tab" -> append("\t");
+                default -> { }
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (!W_NS.equals(uri)) {
+                return;
+            }
+            if ("t".equals(localName)) {
+                inText = false;
+            } else if ("p".equals(localName) && !openParagraphs.isEmpty()) {
+                String text = openParagraphs.pop().toString().trim();
+                if (!text.isEmpty()) {
+                    paragraphs.accept(text);
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText && !openParagraphs.isEmpty()) {
+                openParagraphs.peek().append(ch, start, length);
+            }
+        }
+
+        private void append(String s) {
+            if (!openParagraphs.isEmpty()) {
+                openParagraphs.peek().append(s);
+            }
+        }
+    }
+}
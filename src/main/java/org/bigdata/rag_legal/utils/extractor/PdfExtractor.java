@@ -0,0 +1,39 @@
+package org.bigdata.rag_legal.utils.extractor;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * @describe: PDF 抽取器，逐页抽取文本，按行输出
+ * @Date 2025/5/6
+ */
+public class PdfExtractor implements DocumentExtractor {
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of("pdf");
+    }
+
+    @Override
+    public void extract(Path file, Consumer<String> paragraphs) throws Exception {
+        // 使用临时文件作为缓冲，避免大 PDF 占满堆内存
+        try (PDDocument document = PDDocument.load(file.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                for (String line : stripper.getText(document).split("\\R")) {
+                    String text = line.trim();
+                    if (!text.isEmpty()) {
+                        paragraphs.accept(text);
+                    }
+                }
+            }
+        }
+    }
+}
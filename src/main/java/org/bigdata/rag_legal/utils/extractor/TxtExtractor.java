@@ -0,0 +1,71 @@
+package org.bigdata.rag_legal.utils.extractor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * @describe: 纯文本抽取器，按行输出；优先按 UTF-8 解码，不是合法 UTF-8 时按 GB18030（兼容 GBK）读取
+ * @Date 2025/5/6
+ */
+public class TxtExtractor implements DocumentExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TxtExtractor.class);
+
+    private static final Charset GB18030 = Charset.forName("GB18030");
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of("txt");
+    }
+
+    @Override
+    public void extract(Path file, Consumer<String> paragraphs) throws Exception {
+        Charset charset = detectCharset(file);
+        try (BufferedReader reader = Files.newBufferedReader(file, charset)) {
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                // 去掉 UTF-8 BOM
+                if (first && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                first = false;
+                String text = line.trim();
+                if (!text.isEmpty()) {
+                    paragraphs.accept(text);
+                }
+            }
+        }
+    }
+
+    /**
+     * 先用严格的 UTF-8 解码器完整扫一遍（只解码不保留），遇到非法字节说明是 GBK/GB18030 编码；
+     * 在回调之前确定编码，避免读到一半切换编码导致段落重复输出
+     */
+    static Charset detectCharset(Path file) throws Exception {
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT))) {
+            char[] buffer = new char[8192];
+            while (reader.read(buffer) != -1) {
+                // 仅校验编码
+            }
+            return StandardCharsets.UTF_8;
+        } catch (CharacterCodingException e) {
+            logger.info("🔤 {} 不是 UTF-8 编码，按 GB18030 读取", file.getFileName());
+            return GB18030;
+        }
+    }
+}
@@ -3,7 +3,7 @@ package org.bigdata.rag_legal;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "rag.warmup.enabled=false")
 class RagLegalApplicationTests {
 
     @Test
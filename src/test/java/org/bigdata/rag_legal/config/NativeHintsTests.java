@@ -0,0 +1,85 @@
+package org.bigdata.rag_legal.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeHint;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeHintsTests {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    void setUp() {
+        new NativeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void registersMilvusProtobufMessagesUsedByMilvusService() {
+        for (String type : new String[]{
+                "io.milvus.grpc.SearchResults", "io.milvus.grpc.SearchResults$Builder", "io.milvus.grpc.QueryResults",
+                "io.milvus.grpc.MutationResult", "io.milvus.grpc.DescribeCollectionResponse", "io.milvus.grpc.FieldSchema",
+                "io.milvus.grpc.UpsertRequest", "io.milvus.grpc.DataType"}) {
+            assertReflective(type);
+        }
+    }
+
+    @Test
+    void skipsTypesThatDoNotNeedReflection() {
+        // 普通 Java 代码的参数/结果封装、gRPC 存根、OrBuilder 接口，以及未使用的 DashScope 能力
+        for (String type : new String[]{
+                "io.milvus.param.dml.SearchParam", "io.milvus.response.SearchResultsWrapper",
+                "io.milvus.grpc.MilvusServiceGrpc", "io.milvus.grpc.SearchResultsOrBuilder",
+                "com.alibaba.dashscope.audio.asr.recognition.Recognition",
+                "com.alibaba.dashscope.aigc.imagesynthesis.ImageSynthesisParam"}) {
+            assertFalse(RuntimeHintsPredicates.reflection().onType(TypeReference.of(type)).test(hints), type);
+        }
+    }
+
+    @Test
+    void registersDashScopeGenerationTypes() {
+        for (String type : new String[]{
+                "com.alibaba.dashscope.aigc.generation.GenerationParam",
+                "com.alibaba.dashscope.aigc.generation.GenerationResult",
+                "com.alibaba.dashscope.aigc.generation.GenerationOutput",
+                "com.alibaba.dashscope.common.Message"}) {
+            assertReflective(type);
+        }
+    }
+
+    @Test
+    void registersJsonTypes() {
+        assertReflective("org.json.JSONObject");
+        assertReflective("org.json.JSONArray");
+    }
+
+    @Test
+    void registersOnnxRuntimeForLocalEmbedding() {
+        assertTrue(RuntimeHintsPredicates.resource()
+                .forResource("ai/onnxruntime/native/linux-x64/libonnxruntime.so").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource()
+                .forResource("ai/onnxruntime/native/linux-x64/libonnxruntime4j_jni.so").test(hints));
+        // JNI 代码回调 Java 构造结果对象
+        TypeHint tensor = hints.jni().getTypeHint(TypeReference.of("ai.onnxruntime.OnnxTensor"));
+        assertNotNull(tensor);
+        assertTrue(tensor.getMemberCategories().contains(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS));
+    }
+
+    @Test
+    void registersStaticResources() {
+        assertTrue(RuntimeHintsPredicates.resource().forResource("static/index.html").test(hints));
+    }
+
+    private void assertReflective(String type) {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of(type))
+                .withMemberCategories(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS,
+                        MemberCategory.DECLARED_FIELDS).test(hints), type);
+    }
+}
@@ -0,0 +1,58 @@
+package org.bigdata.rag_legal.service;
+
+import org.bigdata.rag_legal.service.AdmissionService.Priority;
+import org.bigdata.rag_legal.utils.AdmissionRejectedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdmissionServiceTests {
+
+    private static AdmissionService service(int maxTracked, String trustedProxies) {
+        return new AdmissionService(true, 8, 64, 4, 32, 1000, 0.001, 1, maxTracked, trustedProxies);
+    }
+
+    private static MockHttpServletRequest request(String remote, String forwarded) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remote);
+        if (forwarded != null) {
+            request.addHeader("X-Forwarded-For", forwarded);
+        }
+        return request;
+    }
+
+    @Test
+    void ignoresSpoofedHeadersFromUntrustedClients() {
+        AdmissionService admission = service(100, "10.0.0.1");
+        MockHttpServletRequest request = request("203.0.113.7", "198.51.100.1");
+        request.addHeader("X-Client-Id", "fresh-id");
+        request.addHeader("Authorization", "x");
+
+        assertEquals("203.0.113.7", admission.clientIdOf(request));
+        assertEquals(Priority.INTERACTIVE, admission.priorityOf(request));
+    }
+
+    @Test
+    void readsForwardedForOnlyBehindTrustedProxy() {
+        AdmissionService admission = service(100, "10.0.0.1, 10.0.0.2");
+
+        // 最左侧由客户端伪造，取从右往左第一个非代理地址
+        assertEquals("203.0.113.7", admission.clientIdOf(request("10.0.0.1", "1.2.3.4, 203.0.113.7, 10.0.0.2")));
+        assertEquals("10.0.0.1", admission.clientIdOf(request("10.0.0.1", "10.0.0.2")));
+    }
+
+    @Test
+    void limitsPerClientAndBoundsTrackedClients() {
+        AdmissionService admission = service(2, "");
+
+        admission.checkRate("a");
+        assertThrows(AdmissionRejectedException.class, () -> admission.checkRate("a"));
+        // 超过上限后最久未访问的 a 被淘汰，重新获得满桶
+        admission.checkRate("b");
+        admission.checkRate("c");
+        assertDoesNotThrow(() -> admission.checkRate("a"));
+    }
+}
@@ -0,0 +1,58 @@
+package org.bigdata.rag_legal.service;
+
+import org.bigdata.rag_legal.utils.LawDomain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryRouterTests {
+
+    private final QueryRouter router = new QueryRouter(true, 1, 500, 0.05, 30000, 0.3, 0.02);
+
+    @BeforeEach
+    void setUp() {
+        Map<LawDomain, float[]> centroids = new EnumMap<>(LawDomain.class);
+        centroids.put(LawDomain.CRIMINAL, new float[]{1f, 0f, 0f});
+        centroids.put(LawDomain.CIVIL, new float[]{0f, 1f, 0f});
+        centroids.put(LawDomain.ADMINISTRATIVE, new float[]{0f, 0f, 1f});
+        ReflectionTestUtils.setField(router, "centroids", centroids);
+    }
+
+    @Test
+    void singleKeywordDoesNotOverrideClearCentroidRanking() {
+        // 问题向量明显靠近民事质心，只偶然提到“税”
+        List<String> partitions = router.route("c", "朋友还给我的钱要交税吗", List.of(0.1f, 0.99f, 0.1f));
+
+        assertEquals(List.of("civil"), partitions);
+    }
+
+    @Test
+    void keywordHitsBreakNearTies() {
+        // 向量在刑事与行政之间几乎持平，命中“罚款”“处罚”的行政领域胜出
+        List<String> partitions = router.route("c", "被罚款处罚后怎么办", List.of(0.7f, 0f, 0.69f));
+
+        assertEquals(List.of("administrative"), partitions);
+    }
+
+    @Test
+    void ambiguousTopTwoSearchesAllPartitions() {
+        // 刑事与民事几乎持平且没有关键词区分，不能只押一个领域
+        List<String> partitions = router.route("c", "这种情况怎么处理", List.of(0.7f, 0.7f, 0.1f));
+
+        assertEquals(List.of(), partitions);
+    }
+
+    @Test
+    void lowTopScoreSearchesAllPartitions() {
+        // 问题向量离所有领域质心都很远
+        List<String> partitions = router.route("c", "今天天气怎么样", List.of(-0.6f, -0.5f, -0.6f));
+
+        assertEquals(List.of(), partitions);
+    }
+}
@@ -0,0 +1,61 @@
+package org.bigdata.rag_legal.utils;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollectionVersionsTests {
+
+    private HttpServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private String serve(AtomicInteger polls, int busyPolls) throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/admin/inflight", exchange -> {
+            String body = polls.incrementAndGet() <= busyPolls ? "{\"law_articles_v1\": 2, \"law_articles_v2\": 1}" : "{\"law_articles_v2\": 3}";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @Test
+    void drainReturnsOnceOldVersionHasNoSearches() throws Exception {
+        AtomicInteger polls = new AtomicInteger();
+        List<String> instances = CollectionVersions.parseInstances(" " + serve(polls, 3) + " ,");
+
+        long start = System.currentTimeMillis();
+        CollectionVersions.drain(List.of("law_articles_v1"), instances, 30);
+
+        // 新版本 v2 上的检索不影响排空
+        assertEquals(4, polls.get());
+        assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    @Test
+    void unreachableInstanceWaitsUntilUpperBound() throws Exception {
+        long start = System.currentTimeMillis();
+        CollectionVersions.drain(List.of("law_articles_v1"), List.of("http://127.0.0.1:1"), 1);
+
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+    }
+}
@@ -0,0 +1,22 @@
+package org.bigdata.rag_legal.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmbeddingBenchmarkTests {
+
+    @Test
+    void defaultDimsFollowBackendBaseline() {
+        assertEquals(List.of(512), EmbeddingBenchmark.benchDims(null, 512, Set.of(512)));
+        assertEquals(List.of(1024, 768, 512), EmbeddingBenchmark.benchDims("", 1024, Set.of(512, 768, 1024)));
+    }
+
+    @Test
+    void configuredDimsSkipUnsupported() {
+        assertEquals(List.of(512), EmbeddingBenchmark.benchDims("1024,512,256,512", 512, Set.of(512)));
+    }
+}
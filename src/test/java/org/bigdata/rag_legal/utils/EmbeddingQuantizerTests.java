@@ -0,0 +1,75 @@
+package org.bigdata.rag_legal.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddingQuantizerTests {
+
+    private static List<Float> randomVector(Random random, int dim) {
+        List<Float> vector = new ArrayList<>(dim);
+        for (int i = 0; i < dim; i++) {
+            vector.add((float) random.nextGaussian());
+        }
+        return vector;
+    }
+
+    @Test
+    void binarizesSignBitsHighBitFirst() {
+        ByteBuffer bits = EmbeddingQuantizer.toBinary(List.of(1f, -1f, 0f, 2f, -3f, 0.5f, -0.1f, 0.2f, 1f));
+
+        assertEquals(2, bits.capacity());
+        assertEquals((byte) 0b10010101, bits.get(0));
+        assertEquals((byte) 0b10000000, bits.get(1));
+    }
+
+    @Test
+    void hammingCountsDifferingSigns() {
+        ByteBuffer a = EmbeddingQuantizer.toBinary(List.of(1f, 1f, -1f, -1f));
+        ByteBuffer b = EmbeddingQuantizer.toBinary(List.of(1f, -1f, -1f, 1f));
+
+        assertEquals(0, EmbeddingQuantizer.hamming(a, a));
+        assertEquals(2, EmbeddingQuantizer.hamming(a, b));
+    }
+
+    @Test
+    void fromBinaryRestoresUnitSignVector() {
+        float[] restored = EmbeddingQuantizer.fromBinary(EmbeddingQuantizer.toBinary(List.of(1f, -1f, 0f, 2f, -3f, 0.5f, -0.1f, 0.2f)));
+        float m = (float) (1 / Math.sqrt(8));
+
+        assertArrayEquals(new float[]{m, -m, -m, m, -m, m, -m, m}, restored, 1e-6f);
+    }
+
+    @Test
+    void asymmetricDistanceRanksNearVectorFirst() {
+        assertEquals(25f, EmbeddingQuantizer.l2(List.of(0f, 0f), new float[]{3f, 4f}), 1e-6f);
+
+        Random random = new Random(1);
+        List<Float> vector = normalize(randomVector(random, 512));
+        List<Float> near = new ArrayList<>(vector.size());
+        for (Float v : vector) {
+            near.add(v + (float) random.nextGaussian() * 0.01f);
+        }
+        float nearDistance = EmbeddingQuantizer.l2(vector, EmbeddingQuantizer.fromBinary(EmbeddingQuantizer.toBinary(near)));
+        float otherDistance = EmbeddingQuantizer.l2(vector,
+                EmbeddingQuantizer.fromBinary(EmbeddingQuantizer.toBinary(randomVector(new Random(2), 512))));
+
+        assertTrue(nearDistance < otherDistance / 2);
+    }
+
+    private static List<Float> normalize(List<Float> vector) {
+        double norm = Math.sqrt(vector.stream().mapToDouble(v -> v * v).sum());
+        List<Float> unit = new ArrayList<>(vector.size());
+        for (Float v : vector) {
+            unit.add((float) (v / norm));
+        }
+        return unit;
+    }
+}
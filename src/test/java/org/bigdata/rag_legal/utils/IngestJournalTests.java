@@ -0,0 +1,73 @@
+package org.bigdata.rag_legal.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestJournalTests {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void resumesCompletedBatchesWithSameFingerprint() throws Exception {
+        Path file = folder.resolve("c.journal");
+        try (IngestJournal journal = new IngestJournal(file, "abc")) {
+            assertFalse(journal.isResuming());
+            journal.commit(0, 10);
+            journal.commit(2, 10);
+        }
+
+        try (IngestJournal journal = new IngestJournal(file, "abc")) {
+            assertTrue(journal.isResuming());
+            assertEquals(2, journal.completedCount());
+            assertTrue(journal.isCompleted(0));
+            assertFalse(journal.isCompleted(1));
+            assertTrue(journal.isCompleted(2));
+        }
+    }
+
+    @Test
+    void restartsWhenFingerprintChanges() throws Exception {
+        Path file = folder.resolve("c.journal");
+        try (IngestJournal journal = new IngestJournal(file, "abc")) {
+            journal.commit(0, 10);
+        }
+
+        try (IngestJournal journal = new IngestJournal(file, "other")) {
+            assertFalse(journal.isResuming());
+            assertEquals(0, journal.completedCount());
+        }
+        assertEquals("# corpus=other", Files.readAllLines(file).get(0));
+    }
+
+    @Test
+    void ignoresPartialLastLineOnResume() throws Exception {
+        Path file = folder.resolve("c.journal");
+        try (IngestJournal journal = new IngestJournal(file, "abc")) {
+            journal.commit(0, 10);
+        }
+        // 模拟写到一半时崩溃
+        Files.writeString(file, "batch=1 rows=", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (IngestJournal journal = new IngestJournal(file, "abc")) {
+            assertTrue(journal.isResuming());
+            assertFalse(journal.isCompleted(1));
+            journal.commit(2, 10);
+        }
+        // 残行被截掉，新记录不会拼到残行后面
+        try (IngestJournal journal = new IngestJournal(file, "abc")) {
+            assertEquals(2, journal.completedCount());
+            assertFalse(journal.isCompleted(1));
+            assertTrue(journal.isCompleted(2));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.bigdata.rag_legal.utils;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LegalDocumentReaderTests {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void readsDocxAndTxtIntoArticleChunks() throws Exception {
+        try (XWPFDocument document = new XWPFDocument();
+             OutputStream out = Files.newOutputStream(folder.resolve("constitution.docx"))) {
+            document.createParagraph().createRun().setText("第一章 总纲");
+            document.createParagraph().createRun().setText("第一条 中华人民共和国是工人阶级领导的社会主义国家。");
+            document.createParagraph().createRun().setText("第二条 中华人民共和国的一切权力属于人民。");
+            document.createParagraph().createRun().setText("人民行使国家权力的机关是全国人民代表大会和地方各级人民代表大会。");
+            document.write(out);
+        }
+        Files.writeString(folder.resolve("criminal.txt"), "第二百六十四条 盗窃公私财物，数额较大的，处三年以下有期徒刑。\n");
+
+        List<LegalChunk> chunks = new LegalDocumentReader(2, 512).read(folder.toString());
+
+        assertEquals(4, chunks.size());
+        // 按文件路径排序：constitution.docx 在 criminal.txt 之前
+        assertEquals(new LegalChunk("第一章 总纲", "constitution", "", LawDomain.OTHER), chunks.get(0));
+        assertEquals("第二条", chunks.get(2).article());
+        assertTrue(chunks.get(2).text().endsWith("地方各级人民代表大会。"));
+        assertEquals("第二百六十四条", chunks.get(3).article());
+    }
+
+    @Test
+    void readsGbkEncodedTxt() throws Exception {
+        Files.writeString(folder.resolve("criminal.txt"),
+                "第二百六十四条 盗窃公私财物，数额较大的，处三年以下有期徒刑。\n", Charset.forName("GBK"));
+
+        List<LegalChunk> chunks = new LegalDocumentReader(1, 512).read(folder.toString());
+
+        assertEquals(1, chunks.size());
+        assertEquals("第二百六十四条", chunks.get(0).article());
+        assertTrue(chunks.get(0).text().endsWith("处三年以下有期徒刑。"));
+    }
+
+    @Test
+    void splitsArticlesLongerThanMaxLength() {
+        List<LegalChunk> chunks = new ArrayList<>();
+        LegalTextChunker chunker = new LegalTextChunker("民法典", LawDomain.CIVIL, 50, chunks::add);
+        chunker.accept("第一条 " + "合同当事人应当遵循诚信原则，".repeat(10));
+        chunker.finish();
+
+        assertTrue(chunks.size() > 1);
+        assertTrue(chunks.stream().allMatch(c -> c.text().length() <= 51 && "第一条".equals(c.article())));
+    }
+}
@@ -0,0 +1,90 @@
+package org.bigdata.rag_legal.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MilvusBulkLoaderTests {
+
+    private static List<LegalChunk> chunks(LawDomain domain, int count, String text) {
+        List<LegalChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            chunks.add(new LegalChunk(text, "法", "第" + i + "条", domain));
+        }
+        return chunks;
+    }
+
+    @Test
+    void splitsBatchesByRowCount() {
+        MilvusBulkLoader loader = new MilvusBulkLoader("c", 4, 3, Long.MAX_VALUE, 1, Path.of("j"));
+
+        List<int[]> plan = loader.planBatches(chunks(LawDomain.CIVIL, 7, "条文"));
+
+        assertEquals(3, plan.size());
+        assertArrayEquals(new int[]{0, 3}, plan.get(0));
+        assertArrayEquals(new int[]{3, 6}, plan.get(1));
+        assertArrayEquals(new int[]{6, 7}, plan.get(2));
+    }
+
+    @Test
+    void splitsBatchesByEstimatedBytes() {
+        // 每行 4 × 4 字节向量 + 10 字节文本 + 64 字节开销 = 90 字节，200 字节上限每批放 2 行
+        MilvusBulkLoader loader = new MilvusBulkLoader("c", 4, 100, 200, 1, Path.of("j"));
+
+        List<int[]> plan = loader.planBatches(chunks(LawDomain.CIVIL, 5, "0123456789"));
+
+        assertEquals(3, plan.size());
+        assertArrayEquals(new int[]{0, 2}, plan.get(0));
+        assertArrayEquals(new int[]{4, 5}, plan.get(2));
+    }
+
+    @Test
+    void startsNewBatchWhenDomainChanges() {
+        MilvusBulkLoader loader = new MilvusBulkLoader("c", 4, 100, Long.MAX_VALUE, 1, Path.of("j"));
+        List<LegalChunk> chunks = chunks(LawDomain.CRIMINAL, 2, "条文");
+        chunks.addAll(chunks(LawDomain.CIVIL, 3, "条文"));
+
+        List<int[]> plan = loader.planBatches(chunks);
+
+        assertEquals(2, plan.size());
+        assertArrayEquals(new int[]{0, 2}, plan.get(0));
+        assertArrayEquals(new int[]{2, 5}, plan.get(1));
+    }
+
+    @Test
+    void chunkIdsAreDeterministicUniqueAndNonNegative() throws Exception {
+        List<LegalChunk> chunks = chunks(LawDomain.CIVIL, 3, "条文");
+        chunks.add(new LegalChunk("条文", "另一部法", "第0条", LawDomain.CIVIL));
+
+        List<Long> ids = MilvusBulkLoader.chunkIds(chunks);
+
+        assertEquals(ids, MilvusBulkLoader.chunkIds(new ArrayList<>(chunks)));
+        assertEquals(4, new HashSet<>(ids).size());
+        assertTrue(ids.stream().allMatch(id -> id >= 0));
+    }
+
+    @Test
+    void sourcesJsonListsOwnAndMergedSourcesWithinFieldLimit() {
+        LegalChunk chunk = new LegalChunk("条文", "中华人民共和国刑法", "第二百六十四条", LawDomain.CRIMINAL);
+
+        assertEquals("[\"中华人民共和国刑法 第二百六十四条\",\"刑法修正案 第二百六十四条\"]",
+                MilvusBulkLoader.sourcesJson(chunk, List.of("刑法修正案 第二百六十四条", "中华人民共和国刑法 第二百六十四条")));
+
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            many.add("某地方性法规汇编第" + i + "卷 第一条");
+        }
+        String json = MilvusBulkLoader.sourcesJson(chunk, many);
+        assertTrue(json.getBytes(StandardCharsets.UTF_8).length <= MilvusBulkLoader.MAX_SOURCES_BYTES);
+        assertTrue(json.startsWith("[\"中华人民共和国刑法 第二百六十四条\""));
+        assertTrue(json.endsWith("\"]"));
+    }
+}
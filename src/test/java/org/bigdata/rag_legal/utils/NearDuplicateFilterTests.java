@@ -0,0 +1,100 @@
+package org.bigdata.rag_legal.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearDuplicateFilterTests {
+
+    private static final String THEFT = "盗窃公私财物，数额较大的，或者多次盗窃、入户盗窃、携带凶器盗窃、扒窃的，"
+            + "处三年以下有期徒刑、拘役或者管制，并处或者单处罚金；数额巨大或者有其他严重情节的，"
+            + "处三年以上十年以下有期徒刑，并处罚金；数额特别巨大或者有其他特别严重情节的，处十年以上有期徒刑或者无期徒刑，并处罚金或者没收财产。";
+
+    private static final String FRAUD = "诈骗公私财物，数额较大的，处三年以下有期徒刑、拘役或者管制，并处或者单处罚金；"
+            + "数额巨大或者有其他严重情节的，处三年以上十年以下有期徒刑，并处罚金。";
+
+    @Test
+    void linksNearDuplicatesToFirstOccurrence() {
+        LegalChunk original = chunk("中华人民共和国刑法", "第二百六十四条", THEFT);
+        LegalChunk amended = chunk("刑法修正案", "第二百六十四条", THEFT.replace("，", ", ").replace("携带凶器", "携带凶器的"));
+        LegalChunk exact = chunk("刑法（汇编）", "第二百六十四条", THEFT);
+        LegalChunk distinct = chunk("中华人民共和国刑法", "第二百六十六条", FRAUD);
+
+        NearDuplicateFilter filter = new NearDuplicateFilter(5, 0.9);
+        List<LegalChunk> kept = filter.filter(List.of(original, amended, exact, distinct));
+
+        assertEquals(List.of(original, distinct), kept);
+        assertEquals(2, filter.duplicates().size());
+        assertEquals(List.of("刑法修正案 第二百六十四条", "刑法（汇编） 第二百六十四条"), filter.mergedSources().get(original));
+        assertEquals(1, filter.mergedSources().size());
+        filter.duplicates().forEach(d -> {
+            assertSame(original, d.canonical());
+            assertTrue(d.similarity() >= 0.9);
+        });
+    }
+
+    @Test
+    void keepsSimilarButDifferentArticlesBelowThreshold() {
+        LegalChunk theft = chunk("中华人民共和国刑法", "第二百六十四条", THEFT);
+        // 只改了量刑档次，Jaccard 明显低于 0.9
+        LegalChunk changed = chunk("中华人民共和国刑法", "第二百六十四条之一",
+                THEFT.replace("三年以下", "五年以下").replace("十年以下", "十五年以下").replace("十年以上", "十五年以上"));
+
+        NearDuplicateFilter filter = new NearDuplicateFilter(5, 0.9);
+        assertEquals(2, filter.filter(List.of(theft, changed)).size());
+        assertTrue(filter.duplicates().isEmpty());
+    }
+
+    @Test
+    void keepsDuplicatesFromDifferentDomains() {
+        // 同一段文字出现在两个领域：各自分区都要能检索到
+        LegalChunk criminal = chunk("中华人民共和国刑法", "第二百六十四条", THEFT);
+        LegalChunk administrative = new LegalChunk(criminal.text(), "治安处罚汇编", "第二百六十四条", LawDomain.ADMINISTRATIVE);
+
+        NearDuplicateFilter filter = new NearDuplicateFilter(5, 0.9);
+        assertEquals(List.of(criminal, administrative), filter.filter(List.of(criminal, administrative)));
+        assertTrue(filter.duplicates().isEmpty());
+    }
+
+    @Test
+    void keepsChunksDifferingInOneLegalTerm() {
+        LegalChunk theft = chunk("中华人民共和国刑法", "第二百六十四条", THEFT);
+        // 单个量刑幅度、刑种或幅度方向的改动，Jaccard 都在 0.9 以上，但规定已经不同
+        List<String> variants = List.of(
+                THEFT.replaceFirst("三年以下", "五年以下"),
+                THEFT.replaceFirst("十年以下", "十年以上"),
+                THEFT.replaceFirst("拘役", "管制"),
+                THEFT.replaceFirst("并处罚金；", "可以并处罚金；"));
+
+        for (String variant : variants) {
+            LegalChunk changed = chunk("刑法（汇编）", "第二百六十四条", variant);
+            NearDuplicateFilter filter = new NearDuplicateFilter(5, 0.9);
+
+            assertTrue(NearDuplicateFilter.jaccard(filter.shingles(theft.text()), filter.shingles(changed.text())) >= 0.9);
+            assertEquals(List.of(theft, changed), filter.filter(List.of(theft, changed)), variant);
+        }
+    }
+
+    @Test
+    void keepsSameBodyUnderDifferentArticleNumbers() {
+        LegalChunk first = new LegalChunk(THEFT, "中华人民共和国刑法", "第二百六十四条", LawDomain.CRIMINAL);
+        LegalChunk second = new LegalChunk(THEFT, "中华人民共和国刑法", "第二百六十五条", LawDomain.CRIMINAL);
+
+        NearDuplicateFilter filter = new NearDuplicateFilter(5, 0.9);
+        assertEquals(List.of(first, second), filter.filter(List.of(first, second)));
+    }
+
+    @Test
+    void extractsNumeralsPenaltiesAndModalsInOrder() {
+        assertEquals(List.of("三年以下", "有期徒刑", "或者", "拘役", "可以", "并处", "5000元"),
+                NearDuplicateFilter.legalTerms("处三年以下有期徒刑或者拘役，可以并处５０００元"));
+    }
+
+    private static LegalChunk chunk(String law, String article, String text) {
+        return new LegalChunk(article + " " + text, law, article, LawDomain.CRIMINAL);
+    }
+}
@@ -0,0 +1,61 @@
+package org.bigdata.rag_legal.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriorityLimiterTests {
+
+    @Test
+    void higherPriorityEvictsQueuedLowerPriority() throws Exception {
+        PriorityLimiter limiter = new PriorityLimiter("test", 1, 1, 5000);
+        limiter.acquire(1);
+
+        CompletableFuture<Void> low = CompletableFuture.runAsync(() -> acquireUnchecked(limiter, 1));
+        waitUntil(() -> limiter.queued() == 1);
+
+        // 队列已满且优先级相同：立即拒绝
+        assertThrows(AdmissionRejectedException.class, () -> limiter.acquire(1));
+
+        CompletableFuture<Void> high = CompletableFuture.runAsync(() -> acquireUnchecked(limiter, 0));
+        ExecutionException evicted = assertThrows(ExecutionException.class, () -> low.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AdmissionRejectedException.class, evicted.getCause());
+
+        limiter.release();
+        high.get(5, TimeUnit.SECONDS);
+        assertEquals(1, limiter.inFlight());
+        assertEquals(0, limiter.queued());
+    }
+
+    @Test
+    void rejectsAfterMaxWait() throws Exception {
+        PriorityLimiter limiter = new PriorityLimiter("test", 1, 4, 50);
+        limiter.acquire(0);
+
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, () -> limiter.acquire(0));
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+        assertEquals(0, limiter.queued());
+    }
+
+    private static void acquireUnchecked(PriorityLimiter limiter, int priority) {
+        try {
+            limiter.acquire(priority);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+    }
+}
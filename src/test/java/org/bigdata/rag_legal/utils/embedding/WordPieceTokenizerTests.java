@@ -0,0 +1,46 @@
+package org.bigdata.rag_legal.utils.embedding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WordPieceTokenizerTests {
+
+    private static final List<String> VOCAB = List.of(
+            "[PAD]", "[UNK]", "[CLS]", "[SEP]", "刑", "法", "第", "条", "，", "law", "##yer", "cafe", "2", "##0", "(", ")");
+
+    private final WordPieceTokenizer tokenizer = new WordPieceTokenizer(vocab(), true);
+
+    @Test
+    void splitsChineseCharactersAndPunctuation() {
+        assertEquals(List.of("刑", "法", "(", "第", "20", "条", ")", "，", "lawyer"),
+                tokenizer.basicTokenize("刑法(第20条)，\tLawyer"));
+        assertArrayEquals(new long[]{2, 4, 5, 14, 6, 12, 13, 7, 15, 8, 9, 10, 3},
+                tokenizer.encode("刑法(第20条)，Lawyer", 512));
+    }
+
+    @Test
+    void unknownWordsAndAccents() {
+        // 去重音后 café 匹配 cafe；无法拆分的词整体记为 [UNK]
+        assertArrayEquals(new long[]{2, 11, 1, 3}, tokenizer.encode("Café xyz", 512));
+    }
+
+    @Test
+    void truncatesToMaxLength() {
+        long[] ids = tokenizer.encode("刑法刑法刑法刑法", 5);
+        assertArrayEquals(new long[]{2, 4, 5, 4, 3}, ids);
+    }
+
+    private static Map<String, Integer> vocab() {
+        Map<String, Integer> vocab = new HashMap<>();
+        for (int i = 0; i < VOCAB.size(); i++) {
+            vocab.put(VOCAB.get(i), i);
+        }
+        return vocab;
+    }
+}